@@ -0,0 +1,281 @@
+package controllers;
+
+import java.util.Queue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import models.ThreadCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the commands of each game one at a time and in arrival order,
+ * while different games run in parallel. Every game has a mailbox; a
+ * mailbox holding commands is scheduled on a shared pool with a thread
+ * per core and runs a batch of them before giving the thread to the next
+ * game. A game's commands then update, persist and broadcast its board
+ * in the order they arrived, and games share no lock. A thread waiting
+ * for a command reuses its own handle to the result, so a call
+ * allocates little more than its mailbox entry.
+ */
+public final class GameExecutor {
+
+  /**
+   * Most commands a mailbox runs before giving up its thread.
+   */
+  private static final int BATCH = 64;
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(GameExecutor.class);
+
+  /**
+   * Handle of each thread to the result of the command it waits for.
+   */
+  private static final ThreadCache<Call> CALLS = new ThreadCache<>(Call::new);
+
+  /**
+   * Mailboxes by game id. A mailbox is only added to or removed inside
+   * compute, so a command is never left in a removed mailbox.
+   */
+  private final ConcurrentHashMap<String, Mailbox> mailboxes =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Threads running mailboxes.
+   */
+  private final ExecutorService pool;
+
+  /**
+   * Create an executor with a thread per core.
+   */
+  public GameExecutor() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Create an executor.
+   * @param threads number of threads running mailboxes
+   */
+  public GameExecutor(final int threads) {
+    AtomicInteger count = new AtomicInteger();
+    pool = Executors.newFixedThreadPool(threads, task -> {
+      Thread thread = new Thread(task, "game-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Queue a command of a game and return at once.
+   * @param game game id
+   * @param command Runnable
+   */
+  public void execute(final String game, final Runnable command) {
+    Mailbox mailbox = mailboxes.compute(game, (id, existing) -> {
+      Mailbox box = existing == null ? new Mailbox() : existing;
+      box.commands.add(command);
+      return box;
+    });
+    mailbox.schedule();
+  }
+
+  /**
+   * Drop the idle mailboxes of games that are gone; a game with queued
+   * or running commands keeps its mailbox until a later call.
+   * @param gone tells if a game id no longer needs a mailbox
+   * @return number of mailboxes dropped
+   */
+  public int retire(final Predicate<String> gone) {
+    int retired = 0;
+    for (String game : mailboxes.keySet()) {
+      if (gone.test(game) && mailboxes.computeIfPresent(game,
+          (id, box) -> box.isIdle() ? null : box) == null) {
+        retired++;
+      }
+    }
+    return retired;
+  }
+
+  /**
+   * Run a command of a game and wait for its result. Must not be called
+   * from a command of the same game, which would wait for itself.
+   * @param game game id
+   * @param command Supplier
+   * @param <T> result type
+   * @return result of the command
+   * @throws RuntimeException thrown by the command
+   */
+  public <T> T call(final String game, final Supplier<T> command) {
+    Call call = CALLS.get();
+    call.start(command);
+    execute(game, call);
+    return call.join();
+  }
+
+  /**
+   * Get number of games that have a mailbox.
+   * @return int
+   */
+  public int size() {
+    return mailboxes.size();
+  }
+
+  /**
+   * Stop the threads once queued commands ran.
+   */
+  public void shutdown() {
+    pool.shutdown();
+  }
+
+  /**
+   * Command a thread waits for and its result, reused for the thread's
+   * next call once joined.
+   */
+  private static final class Call implements Runnable {
+
+    /**
+     * Command to run, null between calls.
+     */
+    private Supplier<?> command;
+
+    /**
+     * Result of the command.
+     */
+    private Object result;
+
+    /**
+     * Thrown by the command, null if it returned.
+     */
+    private Throwable failure;
+
+    /**
+     * Thread waiting for the result.
+     */
+    private Thread waiter;
+
+    /**
+     * Set once the command ran; publishes result and failure.
+     */
+    private volatile boolean done;
+
+    /**
+     * Prepare a call of a command by the current thread.
+     * @param next Supplier
+     */
+    private void start(final Supplier<?> next) {
+      command = next;
+      waiter = Thread.currentThread();
+      done = false;
+    }
+
+    /**
+     * Run the command and wake the waiting thread. Nothing of the call
+     * is touched once done is set, as the waiter may already reuse it.
+     */
+    @Override
+    public void run() {
+      try {
+        result = command.get();
+      } catch (Throwable e) {
+        failure = e;
+      }
+      Thread thread = waiter;
+      done = true;
+      LockSupport.unpark(thread);
+    }
+
+    /**
+     * Wait for the command to run and clear the call for reuse.
+     * @param <T> result type
+     * @return result of the command
+     * @throws RuntimeException thrown by the command
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T join() {
+      while (!done) {
+        LockSupport.park(this);
+      }
+      Object value = result;
+      Throwable thrown = failure;
+      command = null;
+      result = null;
+      failure = null;
+      waiter = null;
+      if (thrown instanceof RuntimeException) {
+        throw (RuntimeException) thrown;
+      }
+      if (thrown instanceof Error) {
+        throw (Error) thrown;
+      }
+      if (thrown != null) {
+        throw new CompletionException(thrown);
+      }
+      return (T) value;
+    }
+  }
+
+  /**
+   * Queue of the commands of one game and whether it is scheduled.
+   */
+  private final class Mailbox implements Runnable {
+
+    /**
+     * Commands not run yet.
+     */
+    private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Set while the mailbox is queued on or running in the pool.
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * Check if the mailbox has nothing queued or running.
+     * @return boolean
+     */
+    private boolean isIdle() {
+      return commands.isEmpty() && !scheduled.get();
+    }
+
+    /**
+     * Hand the mailbox to the pool unless it is empty or already there.
+     */
+    private void schedule() {
+      if (!commands.isEmpty() && scheduled.compareAndSet(false, true)) {
+        pool.execute(this);
+      }
+    }
+
+    /**
+     * Run a batch of commands, then reschedule for any left.
+     */
+    @Override
+    public void run() {
+      for (int i = 0; i < BATCH; i++) {
+        Runnable command = commands.poll();
+        if (command == null) {
+          break;
+        }
+        try {
+          command.run();
+        } catch (RuntimeException e) {
+          LOG.error("Game command failed", e);
+        }
+      }
+      scheduled.set(false);
+      // A command added after the last poll found the flag still set
+      schedule();
+    }
+  }
+
+}
@@ -0,0 +1,164 @@
+package controllers;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import models.GameBoard;
+import models.SqLite;
+
+/**
+ * Registry of live games keyed by game id.
+ * Lookups go through a ConcurrentHashMap, so reads never take a lock
+ * and games living in different bins never contend with each other.
+ * A registered board is a snapshot that is never changed again: updates
+ * change a copy and swap it in, so readers never see half an update.
+ */
+public final class GameRegistry {
+
+  /**
+   * Id of the game served by the legacy single-game routes.
+   */
+  public static final String DEFAULT_GAME = SqLite.DEFAULT_GAME;
+
+  /**
+   * Expected number of live games on one node.
+   */
+  private static final int INITIAL_CAPACITY = 1 << 14;
+
+  /**
+   * Load factor of the underlying map.
+   */
+  private static final float LOAD_FACTOR = 0.75f;
+
+  /**
+   * Number of concurrently updating threads the map is sized for.
+   */
+  private static final int CONCURRENCY_LEVEL = 64;
+
+  /**
+   * Allowed shape of a game id.
+   */
+  private static final Pattern ID_PATTERN =
+      Pattern.compile("[A-Za-z0-9_-]{1,32}");
+
+  /**
+   * Games by id.
+   */
+  private final ConcurrentHashMap<String, GameBoard> games =
+      new ConcurrentHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR,
+          CONCURRENCY_LEVEL);
+
+  /**
+   * Check if a string can be used as game id.
+   * @param id game id
+   * @return boolean
+   */
+  public static boolean isValidId(final String id) {
+    return id != null && ID_PATTERN.matcher(id).matches();
+  }
+
+  /**
+   * Get game by id.
+   * @param id game id
+   * @return GameBoard or null if no such game
+   */
+  public GameBoard get(final String id) {
+    return games.get(id);
+  }
+
+  /**
+   * Register a game, replacing any previous game with the same id, and
+   * stamp it as updated now.
+   * @param id game id
+   * @param board GameBoard
+   */
+  public void put(final String id, final GameBoard board) {
+    board.setUpdatedAt(System.currentTimeMillis());
+    games.put(id, board);
+  }
+
+  /**
+   * Change a copy of a game's board and publish it with a compare and
+   * swap, changing a fresh copy again if another update was published
+   * in between.
+   * @param id game id
+   * @param change changes the copy; may run more than once, each time on
+   *     a fresh copy
+   * @return published board, or null if no such game
+   */
+  public GameBoard update(final String id,
+      final Consumer<GameBoard> change) {
+    while (true) {
+      GameBoard current = games.get(id);
+      if (current == null) {
+        return null;
+      }
+      GameBoard next = current.copy();
+      change.accept(next);
+      if (publish(id, current, next)) {
+        return next;
+      }
+    }
+  }
+
+  /**
+   * Publish a changed copy of a game's board if the board it was copied
+   * from is still registered, stamping it as updated now. For callers
+   * that check and copy the board themselves while no other update can
+   * run, e.g. on the game's mailbox.
+   * @param id game id
+   * @param current registered board the copy was made from
+   * @param next changed copy
+   * @return true if published, false if the game was replaced or removed
+   */
+  public boolean publish(final String id, final GameBoard current,
+      final GameBoard next) {
+    next.setUpdatedAt(System.currentTimeMillis());
+    // GameBoard keeps identity equality, so this swaps on the snapshot
+    return games.replace(id, current, next);
+  }
+
+  /**
+   * Remove a game.
+   * @param id game id
+   * @return removed GameBoard or null
+   */
+  public GameBoard remove(final String id) {
+    return games.remove(id);
+  }
+
+  /**
+   * Remove a game if it is still the given board.
+   * @param id game id
+   * @param board GameBoard expected to be registered
+   * @return true if removed
+   */
+  public boolean remove(final String id, final GameBoard board) {
+    return games.remove(id, board);
+  }
+
+  /**
+   * Get ids of all registered games.
+   * @return game ids
+   */
+  public Collection<String> ids() {
+    return games.keySet();
+  }
+
+  /**
+   * Get number of registered games.
+   * @return int
+   */
+  public int size() {
+    return games.size();
+  }
+
+  /**
+   * Remove all games.
+   */
+  public void clear() {
+    games.clear();
+  }
+
+}
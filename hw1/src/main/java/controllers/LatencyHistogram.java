@@ -0,0 +1,119 @@
+package controllers;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with power-of-two buckets from 1 us to 16.8 s.
+ * Recording touches two LongAdders and never allocates once the adders
+ * have grown to the number of contending threads.
+ */
+final class LatencyHistogram {
+
+  /**
+   * Number of finite buckets; bucket i holds values up to 2^i us.
+   */
+  private static final int BUCKETS = 25;
+
+  /**
+   * Nanoseconds per microsecond.
+   */
+  private static final long NANOS_PER_MICRO = 1000;
+
+  /**
+   * Upper bounds of the finite buckets in seconds, as scraped.
+   */
+  private static final String[] BOUNDS = new String[BUCKETS];
+
+  static {
+    for (int i = 0; i < BUCKETS; i++) {
+      BOUNDS[i] = String.format(Locale.ROOT, "%.6f", (1L << i) / 1e6);
+    }
+  }
+
+  /**
+   * Counts per bucket, the last one for values above all bounds.
+   */
+  private final LongAdder[] counts = new LongAdder[BUCKETS + 1];
+
+  /**
+   * Sum of recorded values in nanoseconds.
+   */
+  private final LongAdder sumNanos = new LongAdder();
+
+  /**
+   * Create an empty histogram.
+   */
+  LatencyHistogram() {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Get bucket of a duration.
+   * @param nanos duration in nanoseconds
+   * @return bucket index
+   */
+  static int bucket(final long nanos) {
+    long micros = (nanos + NANOS_PER_MICRO - 1) / NANOS_PER_MICRO;
+    if (micros <= 1) {
+      return 0;
+    }
+    return Math.min(BUCKETS, 64 - Long.numberOfLeadingZeros(micros - 1));
+  }
+
+  /**
+   * Record a duration.
+   * @param nanos duration in nanoseconds
+   */
+  void record(final long nanos) {
+    counts[bucket(nanos)].increment();
+    sumNanos.add(nanos);
+  }
+
+  /**
+   * Record the time since a start.
+   * @param startNanos System.nanoTime() at the start
+   */
+  void recordSince(final long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * Get number of recorded values.
+   * @return long
+   */
+  long count() {
+    long total = 0;
+    for (LongAdder count : counts) {
+      total += count.sum();
+    }
+    return total;
+  }
+
+  /**
+   * Append the histogram in Prometheus text format.
+   * @param out text to append to
+   * @param name metric name
+   * @param labels label pairs without braces, may be empty
+   */
+  void write(final StringBuilder out, final String name,
+      final String labels) {
+    String prefix = labels.isEmpty() ? "" : labels + ",";
+    long cumulative = 0;
+    for (int i = 0; i <= BUCKETS; i++) {
+      cumulative += counts[i].sum();
+      out.append(name).append("_bucket{").append(prefix).append("le=\"")
+          .append(i < BUCKETS ? BOUNDS[i] : "+Inf").append("\"} ")
+          .append(cumulative).append('\n');
+    }
+    String suffix = labels.isEmpty() ? " " : "{" + labels + "} ";
+    out.append(name).append("_sum").append(suffix)
+        .append(String.format(Locale.ROOT, "%.9f", sumNanos.sum() / 1e9))
+        .append('\n');
+    out.append(name).append("_count").append(suffix).append(cumulative)
+        .append('\n');
+  }
+
+}
@@ -0,0 +1,245 @@
+package controllers;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server metrics, scraped from /metrics in Prometheus text format.
+ * Recording is a nanoTime pair and a few LongAdder increments; names,
+ * labels and text are only built when scraped.
+ */
+public final class Metrics {
+
+  /**
+   * Stages a move goes through.
+   */
+  public enum Stage {
+    /**
+     * GameBoard.isValid.
+     */
+    VALIDATE,
+    /**
+     * makeMove, isOver and switchTurn.
+     */
+    APPLY,
+    /**
+     * Handing the move to the write-behind store.
+     */
+    PERSIST,
+    /**
+     * Serializing the reply to JSON.
+     */
+    SERIALIZE,
+    /**
+     * Encoding the board or delta and sending it to the game's sessions.
+     */
+    BROADCAST
+  }
+
+  /**
+   * Content type of the Prometheus text format.
+   */
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4";
+
+  /**
+   * Route label of requests no route matched, e.g. static files.
+   */
+  private static final String UNMATCHED = "unmatched";
+
+  /**
+   * Start of the request handled by the current thread.
+   */
+  private static final ThreadLocal<long[]> REQUEST_START =
+      ThreadLocal.withInitial(() -> new long[1]);
+
+  /**
+   * Request latency by route path.
+   */
+  private static final ConcurrentHashMap<String, LatencyHistogram> ROUTES =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Latency of each move stage.
+   */
+  private static final LatencyHistogram[] STAGES =
+      new LatencyHistogram[Stage.values().length];
+
+  static {
+    for (int i = 0; i < STAGES.length; i++) {
+      STAGES[i] = new LatencyHistogram();
+    }
+  }
+
+  /**
+   * Time the database takes to commit a write-behind batch.
+   */
+  private static final LatencyHistogram COMMIT = new LatencyHistogram();
+
+  /**
+   * Time to hand one message to every session of a game.
+   */
+  private static final LatencyHistogram FANOUT = new LatencyHistogram();
+
+  /**
+   * Messages that could not be sent to a session.
+   */
+  private static final LongAdder FAILED_SENDS = new LongAdder();
+
+  /**
+   * Sessions dropped for falling behind.
+   */
+  private static final LongAdder EVICTIONS = new LongAdder();
+
+  /**
+   * Private constructor that prevents utility class instantiation.
+   */
+  private Metrics() {
+  }
+
+  /**
+   * Remember when the current thread started handling a request.
+   */
+  public static void startRequest() {
+    REQUEST_START.get()[0] = System.nanoTime();
+  }
+
+  /**
+   * Record the request the current thread finished handling.
+   * @param route matched route path, null or empty if none matched
+   */
+  public static void endRequest(final String route) {
+    long[] start = REQUEST_START.get();
+    if (start[0] == 0) {
+      return;
+    }
+    String key = route == null || route.isEmpty() ? UNMATCHED : route;
+    LatencyHistogram histogram = ROUTES.get(key);
+    if (histogram == null) {
+      histogram = ROUTES.computeIfAbsent(key, k -> new LatencyHistogram());
+    }
+    histogram.recordSince(start[0]);
+    start[0] = 0;
+  }
+
+  /**
+   * Record the time a move spent in a stage.
+   * @param stage Stage
+   * @param startNanos System.nanoTime() at the start of the stage
+   * @return System.nanoTime() now, the start of the next stage
+   */
+  public static long stage(final Stage stage, final long startNanos) {
+    long now = System.nanoTime();
+    STAGES[stage.ordinal()].record(now - startNanos);
+    return now;
+  }
+
+  /**
+   * Record a database commit.
+   * @param nanos commit duration
+   */
+  public static void commit(final long nanos) {
+    COMMIT.record(nanos);
+  }
+
+  /**
+   * Record a fan-out to the sessions of a game.
+   * @param nanos fan-out duration
+   * @param failed number of sessions the message could not be sent to
+   */
+  public static void fanout(final long nanos, final int failed) {
+    FANOUT.record(nanos);
+    if (failed > 0) {
+      FAILED_SENDS.add(failed);
+    }
+  }
+
+  /**
+   * Record a message that could not be sent after its fan-out returned.
+   */
+  public static void failedSend() {
+    FAILED_SENDS.increment();
+  }
+
+  /**
+   * Record a session dropped for falling behind.
+   */
+  public static void evicted() {
+    EVICTIONS.increment();
+  }
+
+  /**
+   * Get number of recorded requests of a route.
+   * @param route route path
+   * @return long
+   */
+  static long requestCount(final String route) {
+    LatencyHistogram histogram = ROUTES.get(route);
+    return histogram == null ? 0 : histogram.count();
+  }
+
+  /**
+   * Render all metrics in Prometheus text format.
+   * @return metrics text
+   */
+  public static String render() {
+    StringBuilder out = new StringBuilder(16384);
+    String name = "tictactoe_http_request_seconds";
+    header(out, name, "histogram", "HTTP request latency by route.");
+    Map<String, LatencyHistogram> routes = new TreeMap<>(ROUTES);
+    for (Map.Entry<String, LatencyHistogram> route : routes.entrySet()) {
+      route.getValue().write(out, name,
+          "route=\"" + escape(route.getKey()) + "\"");
+    }
+    name = "tictactoe_move_stage_seconds";
+    header(out, name, "histogram", "Time a move spends in each stage.");
+    for (Stage stage : Stage.values()) {
+      STAGES[stage.ordinal()].write(out, name, "stage=\""
+          + stage.name().toLowerCase(Locale.ROOT) + "\"");
+    }
+    name = "tictactoe_commit_seconds";
+    header(out, name, "histogram", "Database commit latency.");
+    COMMIT.write(out, name, "");
+    name = "tictactoe_broadcast_fanout_seconds";
+    header(out, name, "histogram",
+        "Time to hand a message to every session of a game.");
+    FANOUT.write(out, name, "");
+    name = "tictactoe_broadcast_failed_sends_total";
+    header(out, name, "counter", "Messages that could not be sent.");
+    out.append(name).append(' ').append(FAILED_SENDS.sum()).append('\n');
+    name = "tictactoe_websocket_evictions_total";
+    header(out, name, "counter", "Sessions dropped for falling behind.");
+    out.append(name).append(' ').append(EVICTIONS.sum()).append('\n');
+    name = "tictactoe_websocket_sessions";
+    header(out, name, "gauge", "Connected web socket sessions.");
+    out.append(name).append(' ').append(UiWebSocket.sessionCount())
+        .append('\n');
+    return out.toString();
+  }
+
+  /**
+   * Append HELP and TYPE lines of a metric.
+   * @param out text to append to
+   * @param name metric name
+   * @param type metric type
+   * @param help description
+   */
+  private static void header(final StringBuilder out, final String name,
+      final String type, final String help) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+  }
+
+  /**
+   * Escape a label value.
+   * @param value String
+   * @return escaped value
+   */
+  private static String escape(final String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"")
+        .replace("\n", "\\n");
+  }
+
+}
@@ -1,15 +1,30 @@
 package controllers;
 
-import com.google.gson.Gson;
 import io.javalin.Javalin;
+import io.javalin.http.BadRequestResponse;
+import io.javalin.http.Context;
+import io.javalin.http.NotFoundResponse;
 import java.io.IOException;
-import java.util.Queue;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import models.BoardEngine;
+import models.EncodedBoard;
 import models.GameBoard;
-import models.Message;
+import models.GameStore;
+import models.JsonCodec;
 import models.Move;
+import models.MoveCheck;
 import models.Player;
-import models.SqLite;
-import org.eclipse.jetty.websocket.api.Session;
+import models.ThreadCache;
+import models.WriteBehindStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 public final class PlayGame {
@@ -28,30 +43,215 @@ public final class PlayGame {
     return new PlayGame();
   }
 
+  /**
+   * Report games resynced after a failed write.
+   */
+  private static final Logger LOG = LoggerFactory.getLogger(PlayGame.class);
+
+  /**
+   *  Set reason given for requests to a game that does not exist.
+   */
+  static final String GAME_NOT_FOUND = "Game not found";
+
   /**
    *  Set listening port.
    */
   private static final int PORT_NUMBER = 8080;
 
   /**
-   *  Set dimension of board.
+   *  Set default dimension of board.
    */
   private static final int DIM = 3;
 
+  /**
+   *  Set status of a conditional request for an unchanged board.
+   */
+  private static final int NOT_MODIFIED = 304;
+
+  /**
+   *  Set header names and value of board caching.
+   */
+  private static final String ETAG = "ETag";
+  private static final String IF_NONE_MATCH = "If-None-Match";
+  private static final String CACHE_CONTROL = "Cache-Control";
+  private static final String NO_CACHE = "no-cache";
+
+  /**
+   *  Set longest winning line used when none is requested.
+   */
+  private static final int MAX_DEFAULT_WIN_LENGTH = 5;
+
   /**
    * Create Javalin instance.
    */
   private static Javalin app;
 
   /**
-   * Create database instance.
+   * Create database instance, SQLite unless tictactoe.store says log.
    */
-  private static SqLite db = new SqLite();
+  private static GameStore db =
+      GameStore.forName(System.getProperty("tictactoe.store"));
 
   /**
-   * Create GameBoard instance.
+   *  Set bound of the write-behind queue.
    */
-  private static GameBoard board = new GameBoard();
+  private static final int WRITE_QUEUE_CAPACITY = 4096;
+
+  /**
+   *  Set most web socket sends a session may have in flight.
+   */
+  private static final int WS_MAX_PENDING = 64;
+
+  /**
+   *  Set longest time a web socket send may stay in flight.
+   */
+  private static final long WS_SEND_TIMEOUT_MS = 10000;
+
+  /**
+   *  Set values of tictactoe.threads: handlers on Jetty's bounded pool
+   *  of platform threads (default) or each on its own virtual thread.
+   */
+  private static final String PLATFORM = "platform";
+  private static final String VIRTUAL = "virtual";
+
+  /**
+   *  Set how long a finished game stays playable to its clients.
+   */
+  private static final long FINISHED_TTL_MS = 600000;
+
+  /**
+   *  Set how long an unfinished game may go without a change.
+   */
+  private static final long IDLE_TTL_MS = 86400000;
+
+  /**
+   *  Set time between sweeps for expired games.
+   */
+  private static final long SWEEP_INTERVAL_MS = 60000;
+
+  /**
+   * Create sweeper evicting expired games and stalled web sockets.
+   */
+  private static ScheduledExecutorService sweeper;
+
+  /**
+   * Create write-behind stage in front of the database.
+   */
+  private static WriteBehindStore store;
+
+  /**
+   * Create registry of live games.
+   */
+  private static GameRegistry games = new GameRegistry();
+
+  /**
+   * Create executor running the commands of each game one at a time.
+   */
+  private static GameExecutor executor = new GameExecutor();
+
+  /**
+   * Reply of a game command and the database write it queued.
+   * @param <T> reply type
+   */
+  private static final class Outcome<T> {
+
+    /**
+     * Reply to the client.
+     */
+    private final T reply;
+
+    /**
+     * Queued write, null if none.
+     */
+    private final WriteBehindStore.Write write;
+
+    /**
+     * Create an outcome.
+     * @param result reply to the client
+     * @param queued queued write, null if none
+     */
+    private Outcome(final T result, final WriteBehindStore.Write queued) {
+      this.reply = result;
+      this.write = queued;
+    }
+  }
+
+  /**
+   * Outcome of each rejected move, which queues no write.
+   */
+  private static final EnumMap<MoveCheck, Outcome<MoveCheck>> REJECTED =
+      new EnumMap<>(MoveCheck.class);
+
+  static {
+    for (MoveCheck check : MoveCheck.values()) {
+      REJECTED.put(check, new Outcome<>(check, null));
+    }
+  }
+
+  /**
+   * Move of a request thread to apply on a game's mailbox, reused for
+   * the thread's next move once applied.
+   */
+  private static final class MoveCommand
+      implements Supplier<Outcome<MoveCheck>> {
+
+    /**
+     * Game id.
+     */
+    private String id;
+
+    /**
+     * Player id.
+     */
+    private int playerId;
+
+    /**
+     * Row.
+     */
+    private int x;
+
+    /**
+     * Column.
+     */
+    private int y;
+
+    /**
+     * Set the move to apply.
+     * @param game game id
+     * @param player player id
+     * @param row row
+     * @param column column
+     * @return this
+     */
+    private MoveCommand set(final String game, final int player,
+        final int row, final int column) {
+      this.id = game;
+      this.playerId = player;
+      this.x = row;
+      this.y = column;
+      return this;
+    }
+
+    @Override
+    public Outcome<MoveCheck> get() {
+      return applyMove(id, playerId, x, y);
+    }
+  }
+
+  /**
+   * Move command of each request thread.
+   */
+  private static final ThreadCache<MoveCommand> MOVE_COMMANDS =
+      new ThreadCache<>(MoveCommand::new);
+
+  /**
+   * Replace the database before main starts, e.g. with a store that
+   * injects faults in a load test.
+   * @param database GameStore
+   */
+  public static void setStore(final GameStore database) {
+    db = database;
+  }
 
   /** Main method of the application.
    * @param args Command line arguments
@@ -59,10 +259,48 @@ public final class PlayGame {
   public static void main(final String[] args) {
     db.start();
     db.commit();
+    recover();
+    store = new WriteBehindStore(db, WRITE_QUEUE_CAPACITY,
+        Long.getLong("tictactoe.flushWindowMs", 0),
+        WriteBehindStore.Durability.valueOf(System.getProperty(
+            "tictactoe.durability", "sync").toUpperCase(Locale.ROOT)));
+    store.setCommitListener(Metrics::commit);
+    sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "game-sweeper");
+      thread.setDaemon(true);
+      return thread;
+    });
+    sweeper.scheduleWithFixedDelay(
+        () -> sweep(System.currentTimeMillis()), SWEEP_INTERVAL_MS,
+        SWEEP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    UiWebSocket.setBoards(games::get);
+    UiWebSocket.setMoveHandler(PlayGame::move);
+    long sendTimeoutMs =
+        Long.getLong("tictactoe.wsSendTimeoutMs", WS_SEND_TIMEOUT_MS);
+    UiWebSocket.setSendLimits(
+        Integer.getInteger("tictactoe.wsMaxPending", WS_MAX_PENDING),
+        sendTimeoutMs);
+    sweeper.scheduleWithFixedDelay(
+        () -> UiWebSocket.evictStalled(System.nanoTime()), sendTimeoutMs,
+        sendTimeoutMs, TimeUnit.MILLISECONDS);
+    boolean virtual = VIRTUAL.equalsIgnoreCase(
+        System.getProperty("tictactoe.threads", PLATFORM));
     app = Javalin.create(config -> {
       config.addStaticFiles("/public");
+      if (virtual) {
+        config.server(() -> VirtualThreadPool.newServer(PORT_NUMBER));
+      }
     }).start(PORT_NUMBER);
 
+    // Time every request by the route that handled it
+    app.before(ctx -> Metrics.startRequest());
+    app.after(ctx -> Metrics.endRequest(ctx.endpointHandlerPath()));
+
+    app.get("/metrics", ctx -> {
+      ctx.contentType(Metrics.CONTENT_TYPE);
+      ctx.result(Metrics.render());
+    });
+
     // Test Echo Server
     app.post("/", ctx -> {
       ctx.result(ctx.body());
@@ -70,8 +308,11 @@ public final class PlayGame {
 
     // Send GameBoard
     app.get("/gameboard", ctx -> {
-      db.inProgress(board);
-      ctx.result(new Gson().toJson(board));
+      respondIfModified(ctx, gameBoard(GameRegistry.DEFAULT_GAME));
+    });
+
+    app.get("/game/:id/gameboard", ctx -> {
+      respondIfModified(ctx, gameBoard(existingGameId(ctx)));
     });
 
     // Test Echo Server
@@ -84,94 +325,473 @@ public final class PlayGame {
     });
 
     app.post("/startgame", ctx -> {
-      char[][] state = new char[DIM][DIM];
-      board.setGameStarted(false);
-      board.setIsDraw(false);
-      board.setWinner(0);
-      board.setBoardState(state);
-      board.setTurn(1);
-      Player p1 = new Player();
-      p1.setType(ctx.formParam("type").charAt(0));
-      p1.setId(1);
-      board.setP1(p1);
-      board.setP2(null);
-      db.clear();
-      db.insertPlayer(1, ctx.formParam("type").charAt(0));
-      ctx.result(new Gson().toJson(board));
+      respond(ctx, startGame(GameRegistry.DEFAULT_GAME, ctx));
+    });
+
+    app.post("/game/:id/start", ctx -> {
+      respond(ctx, startGame(gameId(ctx), ctx));
     });
 
     app.get("/joingame", ctx -> {
-      db.inProgress(board);
-      Player p2 = new Player();
-      board.setP2(p2);
-      if (board.getP1().getType() == 'X') {
-        p2.setType('O');
-        db.insertPlayer(2, 'O');
-      } else {
-        p2.setType('X');
-        db.insertPlayer(2, 'X');
-      }
-      p2.setId(2);
+      joinGame(GameRegistry.DEFAULT_GAME);
       ctx.redirect("/tictactoe.html?p=2");
-      board.setGameStarted(true);
-      sendGameBoardToAllPlayers(new Gson().toJson(board));
+    });
+
+    app.get("/game/:id/join", ctx -> {
+      respond(ctx, joinGame(existingGameId(ctx)));
     });
 
     app.post("/move/:playerId", ctx -> {
-      db.inProgress(board);
-      int playerId = Integer.parseInt(ctx.pathParam("playerId"));
-      int x = Integer.parseInt(ctx.formParam("x"));
-      int y = Integer.parseInt(ctx.formParam("y"));
-      Move move = new Move();
-      final Message message = new Message();
-      move.setPlayer(board.getPlayerFromId(playerId));
-      move.setMoveX(x);
-      move.setMoveY(y);
-      int winner = 0;
-      int draw = 0;
-      if (board.isValid(move, message)) {
-        board.makeMove(move);
-        if (!board.isOver(move)) {
-          board.switchTurn();
-        } else {
-          winner = board.getWinner();
-          if (board.getIsDraw()) {
-            draw = 1;
-          }
-        }
-        db.insertBoard(playerId, x, y, winner, draw);
-      }
-      ctx.result(new Gson().toJson(message));
-      sendGameBoardToAllPlayers(new Gson().toJson(board));
+      respond(ctx, move(GameRegistry.DEFAULT_GAME, ctx));
     });
 
-    app.after(ctx -> {
-      db.commit();
+    app.post("/game/:id/move/:playerId", ctx -> {
+      respond(ctx, move(existingGameId(ctx), ctx));
     });
 
     // Web sockets - DO NOT DELETE or CHANGE
     app.ws("/gameboard", new UiWebSocket());
+    app.ws("/game/:id/gameboard", new UiWebSocket());
   }
 
-  /** Send message to all players.
-   * @param gameBoardJson Gameboard JSON
-   * @throws IOException Websocket message send IO Exception
-   */
-  private static void sendGameBoardToAllPlayers(final String gameBoardJson) {
-    Queue<Session> sessions = UiWebSocket.getSessions();
-    for (Session sessionPlayer : sessions) {
-      try {
-        sessionPlayer.getRemote().sendString(gameBoardJson);
-      } catch (IOException e) {
-        // Add logger here
+  /**
+   * Get validated game id from path.
+   * @param ctx Context
+   * @return game id
+   */
+  private static String gameId(final Context ctx) {
+    String id = ctx.pathParam("id");
+    if (!GameRegistry.isValidId(id)) {
+      throw new BadRequestResponse("Invalid game id");
+    }
+    return id;
+  }
+
+  /**
+   * Get id of a registered game from path.
+   * @param ctx Context
+   * @return game id
+   */
+  private static String existingGameId(final Context ctx) {
+    String id = gameId(ctx);
+    if (games.get(id) == null) {
+      throw new NotFoundResponse("Game not found");
+    }
+    return id;
+  }
+
+  /**
+   * Rebuild the unfinished games from the database after a (re)start.
+   * From here on the boards in the registry are the source of truth and
+   * the database only receives writes.
+   */
+  private static void recover() {
+    games.clear();
+    Set<String> ids = new HashSet<>(db.getGames());
+    ids.add(GameRegistry.DEFAULT_GAME);
+    for (String id : ids) {
+      GameBoard board = new GameBoard();
+      db.inProgress(id, board);
+      games.put(id, board);
+    }
+  }
+
+  /**
+   * Evict games finished longer than tictactoe.finishedTtlMs ago or
+   * unchanged for tictactoe.idleTtlMs from the registry, the executor,
+   * the web socket channels and the database. The default game is only
+   * ever replaced, never evicted.
+   * @param now epoch millis to measure ages against
+   * @return number of games evicted
+   */
+  public static int sweep(final long now) {
+    long finishedTtl = Long.getLong("tictactoe.finishedTtlMs",
+        FINISHED_TTL_MS);
+    long idleTtl = Long.getLong("tictactoe.idleTtlMs", IDLE_TTL_MS);
+    int evicted = 0;
+    for (String id : games.ids()) {
+      if (!GameRegistry.DEFAULT_GAME.equals(id)
+          && isExpired(games.get(id), now, finishedTtl, idleTtl)
+          && executor.call(id, () -> evict(id, now, finishedTtl, idleTtl))) {
+        evicted++;
+      }
+    }
+    executor.retire(id -> games.get(id) == null);
+    return evicted;
+  }
+
+  /**
+   * Check if a game has outlived its time to live.
+   * @param board GameBoard, null if already gone
+   * @param now epoch millis
+   * @param finishedTtl time to live of a finished game
+   * @param idleTtl time to live of an unchanged game
+   * @return boolean
+   */
+  private static boolean isExpired(final GameBoard board, final long now,
+      final long finishedTtl, final long idleTtl) {
+    if (board == null) {
+      return false;
+    }
+    long age = now - board.getUpdatedAt();
+    return age > idleTtl || board.isFinished() && age > finishedTtl;
+  }
+
+  /**
+   * Evict a game if it is still expired; runs on the game's mailbox, so
+   * no command of the game races it.
+   * @param id game id
+   * @param now epoch millis
+   * @param finishedTtl time to live of a finished game
+   * @param idleTtl time to live of an unchanged game
+   * @return true if evicted
+   */
+  private static boolean evict(final String id, final long now,
+      final long finishedTtl, final long idleTtl) {
+    GameBoard board = games.get(id);
+    if (!isExpired(board, now, finishedTtl, idleTtl)
+        || !games.remove(id, board)) {
+      return false;
+    }
+    UiWebSocket.closeGame(id);
+    store.enqueue(d -> d.clear(id));
+    return true;
+  }
+
+  /**
+   * Get board of a game.
+   * @param id game id
+   * @return GameBoard
+   */
+  private static GameBoard board(final String id) {
+    GameBoard board = games.get(id);
+    if (board == null) {
+      throw new NotFoundResponse("Game not found");
+    }
+    return board;
+  }
+
+  /**
+   * Serialize board of a game.
+   * @param id game id
+   * @return GameBoard JSON of the current version
+   */
+  private static EncodedBoard gameBoard(final String id) {
+    return board(id).encoded();
+  }
+
+  /**
+   * Send encoded JSON as the response body.
+   * @param ctx Context
+   * @param json JsonCodec holding the body
+   * @throws IOException on write error
+   */
+  private static void respond(final Context ctx, final JsonCodec json)
+      throws IOException {
+    ctx.res.setContentLength(json.length());
+    json.writeTo(ctx.res.getOutputStream());
+  }
+
+  /**
+   * Send board JSON as the response body, tagged with its version.
+   * @param ctx Context
+   * @param board encoded GameBoard
+   * @throws IOException on write error
+   */
+  private static void respond(final Context ctx, final EncodedBoard board)
+      throws IOException {
+    ctx.header(ETAG, board.etag());
+    ctx.header(CACHE_CONTROL, NO_CACHE);
+    ctx.res.setContentLength(board.length());
+    board.writeTo(ctx.res.getOutputStream());
+  }
+
+  /**
+   * Send board JSON, or just 304 if the client has this version already.
+   * @param ctx Context
+   * @param board encoded GameBoard
+   * @throws IOException on write error
+   */
+  private static void respondIfModified(final Context ctx,
+      final EncodedBoard board) throws IOException {
+    if (matches(ctx.header(IF_NONE_MATCH), board.etag())) {
+      ctx.header(ETAG, board.etag());
+      ctx.header(CACHE_CONTROL, NO_CACHE);
+      ctx.status(NOT_MODIFIED);
+      return;
+    }
+    respond(ctx, board);
+  }
+
+  /**
+   * Check if an If-None-Match header lists an entity tag.
+   * @param ifNoneMatch header value, may be null
+   * @param etag quoted entity tag
+   * @return boolean
+   */
+  private static boolean matches(final String ifNoneMatch,
+      final String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String tag : ifNoneMatch.split(",")) {
+      String t = tag.trim();
+      if (t.startsWith("W/")) {
+        t = t.substring(2);
+      }
+      if (t.equals(etag) || t.equals("*")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Start a new game with player 1.
+   * @param id game id
+   * @param ctx Context holding the player type and optional board
+   *     dimension, win length and engine
+   * @return GameBoard JSON
+   */
+  private static EncodedBoard startGame(final String id, final Context ctx) {
+    String type = ctx.formParam("type");
+    if (type == null || type.isEmpty()) {
+      throw new BadRequestResponse("Missing player type");
+    }
+    GameBoard board = new GameBoard();
+    int dim;
+    int winLength;
+    try {
+      dim = intParam(ctx, "dim", DIM);
+      winLength = intParam(ctx, "k", Math.min(dim, MAX_DEFAULT_WIN_LENGTH));
+      if (dim < 1 || dim > GameBoard.MAX_DIM || winLength < 1
+          || winLength > dim) {
+        throw new IllegalArgumentException("Invalid board size");
+      }
+      board.setEngine(BoardEngine.forName(ctx.formParam("engine")));
+      board.setWinLength(winLength);
+      board.setBoardState(new char[dim][dim]);
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestResponse(e.getMessage());
+    }
+    board.setGameStarted(false);
+    board.setIsDraw(false);
+    board.setWinner(0);
+    board.setTurn(1);
+    Player p1 = new Player();
+    p1.setType(type.charAt(0));
+    p1.setId(1);
+    board.setP1(p1);
+    board.setP2(null);
+    char p1Type = type.charAt(0);
+    String engine = board.getEngine().name();
+    return run(id, () -> {
+      WriteBehindStore.Write write = store.enqueue(d -> {
+        d.clear(id);
+        d.insertGame(id, dim, winLength, engine);
+        d.insertPlayer(id, 1, p1Type);
+      });
+      games.put(id, board);
+      return new Outcome<>(board.encoded(), write);
+    });
+  }
+
+  /**
+   * Run a command on the mailbox of a game, then wait for the write it
+   * queued, so that the game's next command need not wait for the disk.
+   * The command publishes and broadcasts its board before the write
+   * commits; if the write's batch is rolled back, the game is rebuilt
+   * from the database before the failure is passed on.
+   * @param id game id
+   * @param command Supplier of the Outcome
+   * @param <T> reply type
+   * @return reply
+   * @throws IllegalStateException if the write failed
+   */
+  private static <T> T run(final String id,
+      final Supplier<Outcome<T>> command) {
+    Outcome<T> outcome = executor.call(id, command);
+    try {
+      store.await(outcome.write);
+    } catch (IllegalStateException e) {
+      executor.call(id, () -> resync(id));
+      throw e;
+    }
+    return outcome.reply;
+  }
+
+  /**
+   * Replace a game's board with the one the database holds and send it
+   * to its players, after a rolled-back batch left moves in memory that
+   * never reached the disk. Runs on the game's mailbox, so no command of
+   * the game queues writes meanwhile, and first waits for the writes
+   * already queued, so the database no longer changes under the game.
+   * @param id game id
+   * @return rebuilt GameBoard
+   */
+  private static GameBoard resync(final String id) {
+    try {
+      store.await(store.enqueue(d -> { }));
+    } catch (IllegalStateException e) {
+      // The writes queued before are settled either way
+      LOG.warn("Database still failing while resyncing game {}", id, e);
+    }
+    GameBoard board = new GameBoard();
+    db.inProgress(id, board);
+    games.put(id, board);
+    sendGameBoardToAllPlayers(id, board.encoded().text());
+    return board;
+  }
+
+  /**
+   * Get an optional integer form parameter.
+   * @param ctx Context
+   * @param name parameter name
+   * @param fallback value used when the parameter is absent
+   * @return int
+   */
+  private static int intParam(final Context ctx, final String name,
+      final int fallback) {
+    String value = ctx.formParam(name);
+    if (value == null || value.isEmpty()) {
+      return fallback;
+    }
+    return Integer.parseInt(value);
+  }
+
+  /**
+   * Let player 2 join a game.
+   * @param id game id
+   * @return GameBoard JSON
+   */
+  private static EncodedBoard joinGame(final String id) {
+    return run(id, () -> {
+      GameBoard board = games.update(id, next -> {
+        Player p2 = new Player();
+        p2.setType(next.getP1().getType() == 'X' ? 'O' : 'X');
+        p2.setId(2);
+        next.setP2(p2);
+        next.setGameStarted(true);
+      });
+      if (board == null) {
+        throw new NotFoundResponse("Game not found");
       }
+      char p2Type = board.getP2().getType();
+      WriteBehindStore.Write write =
+          store.enqueue(d -> d.insertPlayer(id, 2, p2Type));
+      EncodedBoard json = board.encoded();
+      sendGameBoardToAllPlayers(id, json.text());
+      return new Outcome<>(json, write);
+    });
+  }
+
+  /**
+   * Apply a move to a game.
+   * @param id game id
+   * @param ctx Context holding player id and coordinates
+   * @return JsonCodec holding the Message JSON
+   */
+  private static JsonCodec move(final String id, final Context ctx) {
+    int playerId = Integer.parseInt(ctx.pathParam("playerId"));
+    int x = Integer.parseInt(ctx.formParam("x"));
+    int y = Integer.parseInt(ctx.formParam("y"));
+    return move(id, playerId, x, y);
+  }
+
+  /**
+   * Apply a move to a game, sent over HTTP or the game's web socket.
+   * @param id game id
+   * @param playerId player id
+   * @param x row
+   * @param y column
+   * @return JsonCodec holding the Message JSON
+   */
+  private static JsonCodec move(final String id, final int playerId,
+      final int x, final int y) {
+    MoveCheck check = run(id, MOVE_COMMANDS.get().set(id, playerId, x, y));
+    long start = System.nanoTime();
+    JsonCodec json = JsonCodec.get().encode(check, playerId, x, y);
+    Metrics.stage(Metrics.Stage.SERIALIZE, start);
+    return json;
+  }
+
+  /**
+   * Validate a move on the published board, apply it to a copy, publish
+   * the copy, then persist and broadcast it; runs on the game's mailbox,
+   * the only writer of the game, so the board checked is the one the
+   * copy is made from. A rejected move allocates no Move, Message,
+   * board copy or Outcome; sent over a web socket, it still allocates
+   * about 100 bytes in all, mostly the mailbox's queue entries, as
+   * MoveBenchmark measures.
+   * @param id game id
+   * @param playerId player id
+   * @param x row
+   * @param y column
+   * @return Outcome holding the MoveCheck
+   */
+  private static Outcome<MoveCheck> applyMove(final String id,
+      final int playerId, final int x, final int y) {
+    GameBoard current = games.get(id);
+    if (current == null) {
+      throw new NotFoundResponse("Game not found");
+    }
+    long start = System.nanoTime();
+    MoveCheck check = current.check(playerId, x, y);
+    start = Metrics.stage(Metrics.Stage.VALIDATE, start);
+    if (!check.isValid()) {
+      sendMoveToAllPlayers(id, current, null, current.getTurn());
+      Metrics.stage(Metrics.Stage.BROADCAST, start);
+      return REJECTED.get(check);
     }
+    Move move = new Move();
+    move.setPlayer(current.getPlayerFromId(playerId));
+    move.setMoveX(x);
+    move.setMoveY(y);
+    GameBoard board = current.copy();
+    board.makeMove(move);
+    if (!board.isOver(move)) {
+      board.switchTurn();
+    }
+    if (!games.publish(id, current, board)) {
+      throw new NotFoundResponse("Game not found");
+    }
+    start = Metrics.stage(Metrics.Stage.APPLY, start);
+    final int winner = board.getWinner();
+    final int draw = board.getIsDraw() ? 1 : 0;
+    WriteBehindStore.Write write = store.enqueue(
+        d -> d.insertBoard(id, playerId, x, y, winner, draw));
+    start = Metrics.stage(Metrics.Stage.PERSIST, start);
+    sendMoveToAllPlayers(id, board, move, current.getTurn());
+    Metrics.stage(Metrics.Stage.BROADCAST, start);
+    return new Outcome<>(check, write);
+  }
+
+  /** Send message to all players of a game.
+   * @param id game id
+   * @param gameBoardJson Gameboard JSON
+   */
+  private static void sendGameBoardToAllPlayers(final String id,
+      final String gameBoardJson) {
+    UiWebSocket.broadcast(id, gameBoardJson);
+  }
+
+  /** Send a move to all players of a game, as board or delta.
+   * @param id game id
+   * @param board GameBoard after the move
+   * @param move applied Move, null if rejected
+   * @param previousTurn turn before the move
+   */
+  private static void sendMoveToAllPlayers(final String id,
+      final GameBoard board, final Move move, final int previousTurn) {
+    UiWebSocket.broadcastMove(id, board, move, previousTurn);
   }
 
   /**
    * Stop the application.
    */
   public static void stop() {
+    sweeper.shutdownNow();
+    store.close();
     db.close();
     app.stop();
   }
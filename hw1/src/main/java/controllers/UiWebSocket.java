@@ -1,23 +1,152 @@
 package controllers;
 
+import io.javalin.http.HttpResponseException;
 import io.javalin.websocket.WsCloseContext;
 import io.javalin.websocket.WsCloseHandler;
 import io.javalin.websocket.WsConnectContext;
 import io.javalin.websocket.WsConnectHandler;
 import io.javalin.websocket.WsHandler;
+import io.javalin.websocket.WsMessageContext;
+import io.javalin.websocket.WsMessageHandler;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import models.BinaryCodec;
+import models.GameBoard;
+import models.JsonCodec;
+import models.Message;
+import models.Move;
+import models.ThreadCache;
 import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-/** Web socket class: DO NOT MODIFY.
+/** Web socket class.
+ * Every session subscribes to the channel of one game, taken from the
+ * :id path parameter or the game query parameter, and only receives
+ * broadcasts of that game.
+ *
+ * <p>By default every update is the whole GameBoard JSON. Connecting with
+ * protocol=delta instead gets a snapshot {"seq":n,"board":{...}} on
+ * connect and then only {"seq":n,"x":..,"y":..,"mark":".."} per move,
+ * plus turn, winner and isDraw when they change. Every update of a game
+ * takes the next sequence number; a client applies a delta whose seq is
+ * one past its last, ignores older ones and sends "snapshot" to get a
+ * fresh snapshot when it sees a gap.
+ *
+ * <p>Any session can also play: "move &lt;playerId&gt; &lt;x&gt; &lt;y&gt;"
+ * makes a move in the session's game exactly like POST /move/:playerId
+ * and is answered on the same connection with the same Message JSON,
+ * after the board update the move caused.
+ *
+ * <p>Connecting with encoding=binary gets every update, and a first frame
+ * on connect, as the whole board in the BinaryCodec layout instead.
+ * One frame is encoded per update and shared by all binary sessions.
  * @author Shirish Singh
  *
  */
 public class UiWebSocket implements Consumer<WsHandler>  {
 
-  // Store sessions to broadcast a message to all users
-  private static final Queue<Session> SESSIONS = new ConcurrentLinkedQueue<>();
+  /**
+   * Update formats a session can ask for.
+   */
+  public enum Protocol {
+    /**
+     * The whole GameBoard after every update.
+     */
+    FULL,
+    /**
+     * A snapshot on connect and on request, then only applied moves.
+     */
+    DELTA,
+    /**
+     * The whole board in binary frames.
+     */
+    BINARY
+  }
+
+  /**
+   * Message a client sends to get a snapshot.
+   */
+  public static final String SNAPSHOT_REQUEST = "snapshot";
+
+  /**
+   * Start of a move command, followed by player id, row and column.
+   */
+  public static final String MOVE_COMMAND = "move ";
+
+  /**
+   * Route label of moves sent over a web socket in the metrics.
+   */
+  static final String MOVE_ROUTE = "ws:move";
+
+  /**
+   * Applies moves sent over a web socket.
+   */
+  @FunctionalInterface
+  public interface MoveHandler {
+    /**
+     * Apply a move to a game.
+     * @param game game id
+     * @param playerId player id
+     * @param x row
+     * @param y column
+     * @return JsonCodec holding the Message JSON reply
+     */
+    JsonCodec move(String game, int playerId, int x, int y);
+  }
+
+  // Report sessions a broadcast could not reach
+  private static final Logger LOG =
+      LoggerFactory.getLogger(UiWebSocket.class);
+
+  // Store subscribers per game to broadcast a message to its users
+  private static final ConcurrentHashMap<String, Channel> CHANNELS =
+      new ConcurrentHashMap<>();
+
+  // Subscription of each session
+  private static final ConcurrentHashMap<Session, Subscriber> SUBSCRIPTIONS =
+      new ConcurrentHashMap<>();
+
+  // Encoder of snapshots and deltas; the request thread's JsonCodec may
+  // hold its reply
+  private static final ThreadCache<JsonCodec> CODECS =
+      new ThreadCache<>(JsonCodec::new);
+
+  // Radix of the numbers of a move command
+  private static final int DECIMAL = 10;
+
+  // Reason sent back for a move command that cannot be applied
+  private static final String INVALID_COMMAND = "Invalid command!";
+
+  // Replies to malformed commands and to moves in a game that is gone,
+  // encoded once
+  private static final String INVALID_COMMAND_REPLY =
+      rejection(INVALID_COMMAND);
+  private static final String GAME_NOT_FOUND_REPLY =
+      rejection(PlayGame.GAME_NOT_FOUND);
+
+  // Look up the board of a game for snapshots
+  private static volatile Function<String, GameBoard> boards = id -> null;
+
+  // Apply moves sent over a web socket, null until a server sets one
+  private static volatile MoveHandler moves;
+
+  // Most sends a session may have in flight before it is evicted
+  private static volatile int maxPending = 64;
+
+  // Longest a send may stay in flight before its session is evicted
+  private static volatile long sendTimeoutNanos =
+      TimeUnit.SECONDS.toNanos(10);
 
   @Override
   public void accept(final WsHandler t) {
@@ -27,24 +156,629 @@ public class UiWebSocket implements Consumer<WsHandler>  {
 
       @Override
       public void handleConnect(final WsConnectContext ctx) throws Exception {
-        // TODO Auto-generated method stub
-        SESSIONS.add(ctx.session);
+        subscribe(gameId(ctx.pathParamMap().get("id"),
+            ctx.queryParam("game")), ctx.session,
+            protocol(ctx.queryParam("protocol"),
+                ctx.queryParam("encoding")));
       }
 
     });
 
+    // On Message
+    t.onMessage(new WsMessageHandler() {
+
+      @Override
+      public void handleMessage(final WsMessageContext ctx)
+          throws Exception {
+        String command = ctx.message().trim();
+        if (SNAPSHOT_REQUEST.equals(command)) {
+          requestSnapshot(ctx.session);
+        } else if (command.startsWith(MOVE_COMMAND)) {
+          move(ctx.session, command);
+        }
+      }
+    });
+
     // On Close
     t.onClose(new WsCloseHandler() {
 
       @Override
       public void handleClose(final WsCloseContext ctx) throws Exception {
-        SESSIONS.remove(ctx.session);
+        unsubscribe(ctx.session);
       }
     });
   }
 
-  public static Queue<Session> getSessions() {
-    return SESSIONS;
+  /**
+   * Pick the game a connection subscribes to.
+   * @param pathId id from the path, may be null
+   * @param queryId id from the query string, may be null
+   * @return game id
+   */
+  private static String gameId(final String pathId, final String queryId) {
+    if (GameRegistry.isValidId(pathId)) {
+      return pathId;
+    }
+    if (GameRegistry.isValidId(queryId)) {
+      return queryId;
+    }
+    return GameRegistry.DEFAULT_GAME;
+  }
+
+  /**
+   * Pick the protocol a connection asks for.
+   * @param name protocol query parameter, may be null
+   * @param encoding encoding query parameter, may be null
+   * @return BINARY or DELTA if asked for, FULL otherwise
+   */
+  private static Protocol protocol(final String name,
+      final String encoding) {
+    if ("binary".equalsIgnoreCase(encoding)) {
+      return Protocol.BINARY;
+    }
+    return "delta".equalsIgnoreCase(name) ? Protocol.DELTA : Protocol.FULL;
+  }
+
+  /**
+   * Set where snapshots get the board of a game from.
+   * @param lookup board of a game id, null if there is none
+   */
+  public static void setBoards(final Function<String, GameBoard> lookup) {
+    boards = lookup;
+  }
+
+  /**
+   * Set what applies moves sent over a web socket.
+   * @param handler MoveHandler
+   */
+  public static void setMoveHandler(final MoveHandler handler) {
+    moves = handler;
+  }
+
+  /**
+   * Set how far behind a session may fall before it is evicted. Applies
+   * to sessions subscribing afterwards.
+   * @param pending most sends in flight
+   * @param timeoutMs longest time a send may stay in flight
+   */
+  public static void setSendLimits(final int pending, final long timeoutMs) {
+    if (pending < 1 || timeoutMs < 1) {
+      throw new IllegalArgumentException("Invalid send limits");
+    }
+    maxPending = pending;
+    sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+  }
+
+  /**
+   * Subscribe a session to the full board updates of a game.
+   * @param game game id
+   * @param session Session
+   */
+  public static void subscribe(final String game, final Session session) {
+    subscribe(game, session, Protocol.FULL);
+  }
+
+  /**
+   * Subscribe a session to the channel of a game.
+   * Delta and binary sessions are sent a snapshot right away.
+   * @param game game id
+   * @param session Session
+   * @param protocol update format
+   */
+  public static void subscribe(final String game, final Session session,
+      final Protocol protocol) {
+    unsubscribe(session);
+    Subscriber subscriber = new Subscriber(session, game, protocol);
+    SUBSCRIPTIONS.put(session, subscriber);
+    CHANNELS.compute(game, (k, existing) -> {
+      Channel channel = existing;
+      if (channel == null) {
+        channel = new Channel();
+      }
+      channel.subscribers.add(subscriber);
+      return channel;
+    });
+    if (protocol != Protocol.FULL) {
+      sendSnapshot(subscriber);
+    }
+  }
+
+  /**
+   * Remove a session from its channel. A channel left empty is dropped
+   * only if its game does not exist; the channel of a live game keeps
+   * its sequence numbers until closeGame.
+   * @param session Session
+   */
+  public static void unsubscribe(final Session session) {
+    Subscriber subscriber = SUBSCRIPTIONS.remove(session);
+    if (subscriber == null) {
+      return;
+    }
+    CHANNELS.computeIfPresent(subscriber.game, (k, channel) -> {
+      channel.subscribers.remove(subscriber);
+      return channel.subscribers.isEmpty() && boards.apply(k) == null
+          ? null : channel;
+    });
+  }
+
+  /**
+   * Drop the channel of a game that is gone and close its sessions.
+   * @param game game id
+   * @return number of sessions closed
+   */
+  public static int closeGame(final String game) {
+    Channel channel = CHANNELS.remove(game);
+    if (channel == null) {
+      return 0;
+    }
+    int closed = 0;
+    for (Subscriber subscriber : channel.subscribers) {
+      if (!SUBSCRIPTIONS.remove(subscriber.session, subscriber)) {
+        continue;
+      }
+      closed++;
+      try {
+        subscriber.session.disconnect();
+      } catch (IOException e) {
+        LOG.debug("Failed to disconnect a session of a closed game", e);
+      }
+    }
+    return closed;
+  }
+
+  /**
+   * Send a snapshot of its game to a subscribed session.
+   * @param session Session
+   */
+  public static void requestSnapshot(final Session session) {
+    Subscriber subscriber = SUBSCRIPTIONS.get(session);
+    if (subscriber != null) {
+      sendSnapshot(subscriber);
+    }
+  }
+
+  /**
+   * Apply a move command of a subscribed session and send the reply
+   * back to it. Malformed commands and moves the server rejects outright,
+   * e.g. in a game that no longer exists, get an invalid move Message;
+   * any other failure is left to Javalin, which logs it.
+   * @param session Session
+   * @param command "move playerId x y"
+   */
+  public static void move(final Session session, final String command) {
+    Subscriber subscriber = SUBSCRIPTIONS.get(session);
+    MoveHandler handler = moves;
+    if (subscriber == null || handler == null) {
+      return;
+    }
+    Metrics.startRequest();
+    try {
+      // Bounds of the player id, row and column
+      int p0 = skip(command, MOVE_COMMAND.length(), true);
+      int p1 = skip(command, p0, false);
+      int x0 = skip(command, p1, true);
+      int x1 = skip(command, x0, false);
+      int y0 = skip(command, x1, true);
+      int y1 = skip(command, y0, false);
+      String reply = INVALID_COMMAND_REPLY;
+      if (p0 < p1 && x0 < x1 && y0 < y1
+          && skip(command, y1, true) == command.length()) {
+        try {
+          int playerId = Integer.parseInt(command, p0, p1, DECIMAL);
+          int x = Integer.parseInt(command, x0, x1, DECIMAL);
+          int y = Integer.parseInt(command, y0, y1, DECIMAL);
+          reply = apply(handler, subscriber.game, playerId, x, y);
+        } catch (NumberFormatException e) {
+          // Not a number, so an invalid command
+        }
+      }
+      send(subscriber, reply);
+    } finally {
+      Metrics.endRequest(MOVE_ROUTE);
+    }
+  }
+
+  /**
+   * Apply a parsed move and get the reply to it.
+   * @param handler MoveHandler
+   * @param game game id
+   * @param playerId player id
+   * @param x row
+   * @param y column
+   * @return Message JSON
+   */
+  private static String apply(final MoveHandler handler, final String game,
+      final int playerId, final int x, final int y) {
+    try {
+      return handler.move(game, playerId, x, y).toString();
+    } catch (HttpResponseException e) {
+      return PlayGame.GAME_NOT_FOUND.equals(e.getMessage())
+          ? GAME_NOT_FOUND_REPLY : rejection(e.getMessage());
+    }
+  }
+
+  /**
+   * Skip the spaces, or the word, of a command starting at an index.
+   * Spaces are the chars String.trim drops.
+   * @param command String
+   * @param from index to start at
+   * @param spaces true to skip spaces, false to skip a word
+   * @return index of the first char not skipped, or the length
+   */
+  private static int skip(final String command, final int from,
+      final boolean spaces) {
+    int i = from;
+    while (i < command.length() && (command.charAt(i) <= ' ') == spaces) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Encode a Message rejecting a move command.
+   * @param text reason
+   * @return Message JSON
+   */
+  private static String rejection(final String text) {
+    Message message = new Message();
+    message.setMoveValidity(false);
+    message.setMessage(text);
+    return CODECS.get().encode(message).toString();
+  }
+
+  /**
+   * Get sessions subscribed to a game.
+   * @param game game id
+   * @return sessions
+   */
+  public static List<Session> getSessions(final String game) {
+    Channel channel = CHANNELS.get(game);
+    if (channel == null) {
+      return Collections.emptyList();
+    }
+    List<Session> sessions = new ArrayList<>();
+    for (Subscriber subscriber : channel.subscribers) {
+      sessions.add(subscriber.session);
+    }
+    return sessions;
+  }
+
+  /**
+   * Get number of connected sessions across all games.
+   * @return int
+   */
+  public static int sessionCount() {
+    return SUBSCRIPTIONS.size();
+  }
+
+  /**
+   * Send the whole board to every session subscribed to a game.
+   * Delta sessions get it as a snapshot, binary sessions as a frame.
+   * @param game game id
+   * @param message GameBoard JSON
+   * @return number of sends that failed or evicted their session right
+   *     away; later failures are only counted in the metrics
+   */
+  public static int broadcast(final String game, final String message) {
+    long start = System.nanoTime();
+    int failed = 0;
+    Channel channel = CHANNELS.get(game);
+    if (channel != null) {
+      synchronized (channel) {
+        long seq = ++channel.seq;
+        String snapshot = null;
+        ByteBuffer frame = null;
+        GameBoard board = boards.apply(game);
+        for (Subscriber subscriber : channel.subscribers) {
+          boolean sent;
+          if (subscriber.protocol == Protocol.FULL) {
+            sent = send(subscriber, message);
+          } else {
+            if (board == null) {
+              continue;
+            }
+            if (subscriber.protocol == Protocol.BINARY) {
+              if (frame == null) {
+                frame = BinaryCodec.encode(board);
+              }
+              sent = send(subscriber, frame);
+            } else {
+              if (snapshot == null) {
+                snapshot = CODECS.get().encodeSnapshot(seq, board)
+                    .toString();
+              }
+              sent = send(subscriber, snapshot);
+            }
+          }
+          if (!sent) {
+            failed++;
+          }
+        }
+      }
+    }
+    Metrics.fanout(System.nanoTime() - start, failed);
+    return failed;
+  }
+
+  /**
+   * Send a move to every session subscribed to a game, encoding the
+   * delta and the binary frame at most once each and only if some
+   * session wants them. Full sessions share the board's cached JSON.
+   * @param game game id
+   * @param board GameBoard after the move
+   * @param move applied Move, null if the move was rejected and only
+   *     full and binary sessions get the unchanged board
+   * @param previousTurn turn before the move
+   * @return number of sends that failed or evicted their session right
+   *     away; later failures are only counted in the metrics
+   */
+  public static int broadcastMove(final String game, final GameBoard board,
+      final Move move, final int previousTurn) {
+    long start = System.nanoTime();
+    int failed = 0;
+    Channel channel = CHANNELS.get(game);
+    if (channel != null) {
+      synchronized (channel) {
+        long seq = move == null ? channel.seq : ++channel.seq;
+        String full = null;
+        String delta = null;
+        ByteBuffer frame = null;
+        for (Subscriber subscriber : channel.subscribers) {
+          boolean sent;
+          if (subscriber.protocol == Protocol.FULL) {
+            if (full == null) {
+              full = board.encoded().text();
+            }
+            sent = send(subscriber, full);
+          } else if (subscriber.protocol == Protocol.BINARY) {
+            if (frame == null) {
+              frame = BinaryCodec.encode(board);
+            }
+            sent = send(subscriber, frame);
+          } else if (move != null) {
+            if (delta == null) {
+              delta = CODECS.get().encodeDelta(seq, board, move,
+                  previousTurn).toString();
+            }
+            sent = send(subscriber, delta);
+          } else {
+            continue;
+          }
+          if (!sent) {
+            failed++;
+          }
+        }
+      }
+    }
+    Metrics.fanout(System.nanoTime() - start, failed);
+    return failed;
+  }
+
+  /**
+   * Send a snapshot of its game at the current sequence number, as a
+   * binary frame to binary sessions. The board is looked up under the
+   * channel's lock, so no update is numbered in between; it may hold a
+   * move whose delta is still to come, which a client applies again to
+   * the same effect.
+   * @param subscriber Subscriber
+   */
+  private static void sendSnapshot(final Subscriber subscriber) {
+    Channel channel = CHANNELS.get(subscriber.game);
+    if (channel == null) {
+      return;
+    }
+    synchronized (channel) {
+      GameBoard board = boards.apply(subscriber.game);
+      if (board == null) {
+        return;
+      }
+      if (subscriber.protocol == Protocol.BINARY) {
+        send(subscriber, BinaryCodec.encode(board));
+      } else {
+        send(subscriber, CODECS.get().encodeSnapshot(channel.seq, board)
+            .toString());
+      }
+    }
+  }
+
+  /**
+   * Start sending a text message to one session without waiting for it,
+   * evicting the session if it is too far behind.
+   * @param subscriber Subscriber
+   * @param text message text
+   * @return false if the session was evicted or the send failed
+   */
+  private static boolean send(final Subscriber subscriber,
+      final String text) {
+    if (!subscriber.begin(System.nanoTime())) {
+      evict(subscriber);
+      return false;
+    }
+    try {
+      subscriber.session.getRemote().sendString(text, subscriber);
+      return true;
+    } catch (RuntimeException e) {
+      subscriber.end();
+      LOG.warn("Failed to send to a session of game {}", subscriber.game, e);
+      return false;
+    }
+  }
+
+  /**
+   * Start sending a binary frame to one session without waiting for it,
+   * evicting the session if it is too far behind. The session gets its
+   * own view of the shared buffer, leaving the position alone for the
+   * other sessions.
+   * @param subscriber Subscriber
+   * @param frame encoded frame, not changed afterwards
+   * @return false if the session was evicted or the send failed
+   */
+  private static boolean send(final Subscriber subscriber,
+      final ByteBuffer frame) {
+    if (!subscriber.begin(System.nanoTime())) {
+      evict(subscriber);
+      return false;
+    }
+    try {
+      subscriber.session.getRemote().sendBytes(frame.duplicate(),
+          subscriber);
+      return true;
+    } catch (RuntimeException e) {
+      subscriber.end();
+      LOG.warn("Failed to send to a session of game {}", subscriber.game, e);
+      return false;
+    }
+  }
+
+  /**
+   * Evict every session whose oldest send has been in flight longer
+   * than the send timeout. Sends only check the session they go to, so
+   * this catches stalled sessions of games nobody sends to any more.
+   * @param now System.nanoTime()
+   * @return number of sessions evicted
+   */
+  public static int evictStalled(final long now) {
+    int evicted = 0;
+    for (Subscriber subscriber : SUBSCRIPTIONS.values()) {
+      if (subscriber.isStalled(now)) {
+        evict(subscriber);
+        evicted++;
+      }
+    }
+    return evicted;
+  }
+
+  /**
+   * Drop a session that cannot keep up and close its connection.
+   * @param subscriber Subscriber
+   */
+  private static void evict(final Subscriber subscriber) {
+    if (SUBSCRIPTIONS.get(subscriber.session) != subscriber) {
+      return;
+    }
+    unsubscribe(subscriber.session);
+    Metrics.evicted();
+    LOG.warn("Evicted a slow session of game {}", subscriber.game);
+    try {
+      subscriber.session.disconnect();
+    } catch (IOException e) {
+      LOG.debug("Failed to disconnect an evicted session", e);
+    }
+  }
+
+  /**
+   * Session subscribed to a game. Also the callback of every send to
+   * it; Jetty completes the sends of a session in order, so the oldest
+   * send still in flight is the first one in the ring.
+   */
+  private static final class Subscriber implements WriteCallback {
+
+    /**
+     * Web socket session.
+     */
+    private final Session session;
+
+    /**
+     * Game id.
+     */
+    private final String game;
+
+    /**
+     * Update format.
+     */
+    private final Protocol protocol;
+
+    /**
+     * Start times of the sends in flight, oldest at head.
+     */
+    private final long[] sentAt = new long[maxPending];
+
+    /**
+     * Index of the oldest send in flight, guarded by this.
+     */
+    private int head;
+
+    /**
+     * Number of sends in flight, guarded by this.
+     */
+    private int pending;
+
+    /**
+     * Create a subscriber.
+     * @param s Session
+     * @param g game id
+     * @param p Protocol
+     */
+    Subscriber(final Session s, final String g, final Protocol p) {
+      session = s;
+      game = g;
+      protocol = p;
+    }
+
+    /**
+     * Count a send about to start.
+     * @param now System.nanoTime()
+     * @return false if the session already has the most sends in flight
+     *     or the oldest one has been in flight too long
+     */
+    private synchronized boolean begin(final long now) {
+      if (pending == sentAt.length || isStalled(now)) {
+        return false;
+      }
+      sentAt[(head + pending) % sentAt.length] = now;
+      pending++;
+      return true;
+    }
+
+    /**
+     * Check if the oldest send has been in flight too long.
+     * @param now System.nanoTime()
+     * @return boolean
+     */
+    private synchronized boolean isStalled(final long now) {
+      return pending > 0 && now - sentAt[head] > sendTimeoutNanos;
+    }
+
+    /**
+     * Count the oldest send as finished.
+     */
+    private synchronized void end() {
+      if (pending > 0) {
+        head = (head + 1) % sentAt.length;
+        pending--;
+      }
+    }
+
+    @Override
+    public void writeSuccess() {
+      end();
+    }
+
+    @Override
+    public void writeFailed(final Throwable e) {
+      end();
+      Metrics.failedSend();
+      LOG.warn("Failed to send to a session of game {}", game, e);
+    }
+  }
+
+  /**
+   * Subscribers of one game. Updates are numbered and sent while holding
+   * the channel's lock, so every session sees them in order. Kept while
+   * its game lives, so numbers never restart under connected clients.
+   */
+  private static final class Channel {
+
+    /**
+     * Subscribed sessions.
+     */
+    private final Queue<Subscriber> subscribers =
+        new ConcurrentLinkedQueue<>();
+
+    /**
+     * Sequence number of the last update, guarded by this.
+     */
+    private long seq;
   }
 
 }
@@ -0,0 +1,164 @@
+package controllers;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import models.ThreadCache;
+import org.eclipse.jetty.io.ManagedSelector;
+import org.eclipse.jetty.server.AbstractConnector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.thread.ExecutionStrategy;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+/**
+ * Jetty thread pool that runs every HTTP and web socket task on a new
+ * virtual thread. A handler blocked on the database then parks its
+ * virtual thread instead of holding one of a bounded number of platform
+ * threads. Jetty's acceptor and selector loops run on a small pool of
+ * platform threads instead: they block in accept and select for the
+ * life of the server, and on virtual threads they starve the carriers
+ * until connections get reset. The build targets Java 17, so the
+ * executor is looked up reflectively; the pool needs a Java 21 runtime.
+ * Each task hands its thread's cached codecs back when it ends, so the
+ * next task reuses them instead of building its own.
+ */
+public final class VirtualThreadPool extends ContainerLifeCycle
+    implements ThreadPool {
+
+  /**
+   * Number of acceptor loops of the server's connector.
+   */
+  private static final int ACCEPTORS = 1;
+
+  /**
+   * Executor starting a virtual thread per task.
+   */
+  private final ExecutorService executor;
+
+  /**
+   * Platform threads running the acceptor and selector loops.
+   */
+  private final QueuedThreadPool loops;
+
+  /**
+   * Number of tasks running.
+   */
+  private final AtomicInteger running = new AtomicInteger();
+
+  /**
+   * Create a pool.
+   * @param loopThreads platform threads for the acceptor and selector
+   *     loops, at least their number
+   * @throws IllegalStateException if the runtime has no virtual threads
+   */
+  VirtualThreadPool(final int loopThreads) {
+    executor = newVirtualThreadPerTaskExecutor();
+    loops = new QueuedThreadPool(loopThreads, 1);
+    loops.setName("jetty-loop");
+    loops.setReservedThreads(0);
+    addBean(loops);
+  }
+
+  /**
+   * Create a server on a port whose connector runs its acceptor and one
+   * selector per two cores on platform threads and everything else on
+   * virtual threads. The loop pool holds a spare thread per selector for
+   * the selectors' producers to hand over to.
+   * @param port port to listen on, 0 for any free one
+   * @return Server
+   * @throws IllegalStateException if the runtime has no virtual threads
+   */
+  public static Server newServer(final int port) {
+    int selectors = Math.max(1,
+        Runtime.getRuntime().availableProcessors() / 2);
+    Server server = new Server(
+        new VirtualThreadPool(ACCEPTORS + 2 * selectors));
+    ServerConnector connector =
+        new ServerConnector(server, ACCEPTORS, selectors);
+    connector.setPort(port);
+    server.addConnector(connector);
+    return server;
+  }
+
+  /**
+   * Create an executor starting a virtual thread per task.
+   * @return ExecutorService
+   * @throws IllegalStateException if the runtime has no virtual threads
+   */
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService) Executors.class
+          .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (NoSuchMethodException | IllegalAccessException
+        | InvocationTargetException e) {
+      throw new IllegalStateException("Virtual threads need Java 21 or "
+          + "later, running on " + System.getProperty("java.version"), e);
+    }
+  }
+
+  /**
+   * Check if a task is one of Jetty's acceptor or selector loops. Jetty
+   * 9.4 has no marker for them, so they are told apart by type: an
+   * acceptor is an inner class of AbstractConnector, and a selector is
+   * started as ManagedSelector's produce method reference, a hidden
+   * class nested in ManagedSelector, then handed on as the
+   * ExecutionStrategy itself when its producer is dispatched.
+   * @param task Runnable
+   * @return boolean
+   */
+  static boolean isLoop(final Runnable task) {
+    Class<?> type = task.getClass();
+    return type.getEnclosingClass() == AbstractConnector.class
+        || task instanceof ExecutionStrategy
+        || type.isHidden() && type.getNestHost() == ManagedSelector.class;
+  }
+
+  @Override
+  public void execute(final Runnable task) {
+    if (isLoop(task)) {
+      loops.execute(task);
+      return;
+    }
+    executor.execute(() -> {
+      running.incrementAndGet();
+      try {
+        task.run();
+      } finally {
+        ThreadCache.releaseAll();
+        running.decrementAndGet();
+      }
+    });
+  }
+
+  @Override
+  public void join() throws InterruptedException {
+    executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public int getThreads() {
+    return running.get() + loops.getThreads();
+  }
+
+  @Override
+  public int getIdleThreads() {
+    return loops.getIdleThreads();
+  }
+
+  @Override
+  public boolean isLowOnThreads() {
+    return false;
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    executor.shutdown();
+    super.doStop();
+  }
+
+}
@@ -0,0 +1,90 @@
+package models;
+
+/**
+ * Engine that works directly on the char[][] board state.
+ * A win is found by walking outward from the last move along the four
+ * line directions, so a check costs O(k) on any board size.
+ */
+public class ArrayBoardEngine implements BoardEngine {
+
+  /**
+   * Board state shared with the GameBoard.
+   */
+  private char[][] boardState;
+
+  /**
+   * Marks in a row needed to win.
+   */
+  private int winLength;
+
+  @Override
+  public String name() {
+    return ARRAY;
+  }
+
+  @Override
+  public BoardEngine copy(final char[][] state) {
+    ArrayBoardEngine copy = new ArrayBoardEngine();
+    copy.load(state, winLength);
+    return copy;
+  }
+
+  @Override
+  public void load(final char[][] state, final int length) {
+    this.boardState = state;
+    this.winLength = length;
+  }
+
+  @Override
+  public boolean isEmpty(final int row, final int col) {
+    return boardState[row][col] == '\u0000';
+  }
+
+  @Override
+  public void place(final int row, final int col, final char mark) {
+    boardState[row][col] = mark;
+  }
+
+  @Override
+  public boolean isWin(final int row, final int col) {
+    return line(row, col, 0, 1) >= winLength
+        || line(row, col, 1, 0) >= winLength
+        || line(row, col, 1, 1) >= winLength
+        || line(row, col, 1, -1) >= winLength;
+  }
+
+  /**
+   * Count marks equal to the one on a cell along a line through it.
+   * @param row int
+   * @param col int
+   * @param dx row step
+   * @param dy column step
+   * @return length of the run, capped at winLength
+   */
+  private int line(final int row, final int col, final int dx,
+      final int dy) {
+    char mark = boardState[row][col];
+    int count = 1;
+    for (int i = 1; count < winLength && inside(row + i * dx, col + i * dy)
+        && boardState[row + i * dx][col + i * dy] == mark; i++) {
+      count++;
+    }
+    for (int i = 1; count < winLength && inside(row - i * dx, col - i * dy)
+        && boardState[row - i * dx][col - i * dy] == mark; i++) {
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Check if a cell lies on the board.
+   * @param row int
+   * @param col int
+   * @return boolean
+   */
+  private boolean inside(final int row, final int col) {
+    return row >= 0 && row < boardState.length
+        && col >= 0 && col < boardState.length;
+  }
+
+}
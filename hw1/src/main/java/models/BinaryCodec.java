@@ -0,0 +1,187 @@
+package models;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-layout binary encoding of a GameBoard for web socket clients that
+ * ask for encoding=binary. A frame is
+ * <pre>
+ * 0  version, 1
+ * 1  board dimension, 0 before a game is started
+ * 2  turn
+ * 3  winner, 0 if none
+ * 4  flags, bit 0 game started, bit 1 draw
+ * 5  mark of player 1, 0 if none
+ * 6  mark of player 2, 0 if none
+ * 7  marks in a row needed to win
+ * 8  cells row by row, 2 bits each and 4 to a byte starting with the low
+ *    bits: 0 empty, 1 player 1's mark, 2 player 2's mark, 3 other
+ * </pre>
+ * so a 19x19 board fits in 99 bytes. Marks outside ASCII are sent as '?'.
+ */
+public final class BinaryCodec {
+
+  /**
+   * Frame layout version.
+   */
+  public static final int VERSION = 1;
+
+  /**
+   * Length of the header before the cells.
+   */
+  public static final int HEADER_LENGTH = 8;
+
+  /**
+   * Game started flag.
+   */
+  public static final int STARTED = 1;
+
+  /**
+   * Draw flag.
+   */
+  public static final int DRAW = 2;
+
+  /**
+   * Cell values.
+   */
+  private static final int EMPTY = 0;
+  private static final int P1_MARK = 1;
+  private static final int P2_MARK = 2;
+  private static final int OTHER = 3;
+
+  /**
+   * Private constructor that prevents utility class instantiation.
+   */
+  private BinaryCodec() {
+  }
+
+  /**
+   * Get the length of the frame of a board.
+   * @param dim board dimension
+   * @return number of bytes
+   */
+  public static int frameLength(final int dim) {
+    return HEADER_LENGTH + (dim * dim + 3) / 4;
+  }
+
+  /**
+   * Encode a board into a new frame.
+   * @param board GameBoard
+   * @return buffer holding the frame between position and limit
+   */
+  public static ByteBuffer encode(final GameBoard board) {
+    BoardView cells = board.view();
+    int dim = cells.dim();
+    byte[] frame = new byte[frameLength(dim)];
+    char p1 = mark(board.getP1());
+    char p2 = mark(board.getP2());
+    frame[0] = VERSION;
+    frame[1] = (byte) dim;
+    frame[2] = (byte) board.getTurn();
+    frame[3] = (byte) board.getWinner();
+    frame[4] = (byte) ((board.isGameStarted() ? STARTED : 0)
+        | (board.getIsDraw() ? DRAW : 0));
+    frame[5] = (byte) ascii(p1);
+    frame[6] = (byte) ascii(p2);
+    frame[7] = (byte) board.getWinLength();
+    int cell = 0;
+    for (int i = 0; i < dim; i++) {
+      for (int j = 0; j < dim; j++, cell++) {
+        char c = cells.cell(i, j);
+        int value;
+        if (c == '\u0000') {
+          value = EMPTY;
+        } else if (c == p1) {
+          value = P1_MARK;
+        } else if (c == p2) {
+          value = P2_MARK;
+        } else {
+          value = OTHER;
+        }
+        frame[HEADER_LENGTH + (cell >> 2)] |= value << ((cell & 3) << 1);
+      }
+    }
+    return ByteBuffer.wrap(frame);
+  }
+
+  /**
+   * Decode a frame, e.g. in a bot client. Cells holding neither player's
+   * mark come back as '?'.
+   * @param frame buffer holding the frame from its position on; the
+   *     position is left unchanged
+   * @return GameBoard
+   * @throws IllegalArgumentException on an unknown version or a short
+   *     frame
+   */
+  public static GameBoard decode(final ByteBuffer frame) {
+    int at = frame.position();
+    int version = frame.remaining() < HEADER_LENGTH ? 0 : frame.get(at);
+    if (version != VERSION) {
+      throw new IllegalArgumentException("Not a board frame");
+    }
+    int dim = frame.get(at + 1) & 0xff;
+    if (frame.remaining() < frameLength(dim)) {
+      throw new IllegalArgumentException("Short board frame");
+    }
+    GameBoard board = new GameBoard();
+    char p1 = (char) frame.get(at + 5);
+    char p2 = (char) frame.get(at + 6);
+    board.setP1(player(1, p1));
+    board.setP2(player(2, p2));
+    board.setTurn(frame.get(at + 2));
+    board.setWinner(frame.get(at + 3));
+    int flags = frame.get(at + 4);
+    board.setGameStarted((flags & STARTED) != 0);
+    board.setIsDraw((flags & DRAW) != 0);
+    if (dim > 0) {
+      char[][] state = new char[dim][dim];
+      char[] marks = {'\u0000', p1, p2, '?'};
+      int cell = 0;
+      for (int i = 0; i < dim; i++) {
+        for (int j = 0; j < dim; j++, cell++) {
+          int bits = frame.get(at + HEADER_LENGTH + (cell >> 2))
+              >> ((cell & 3) << 1);
+          state[i][j] = marks[bits & 3];
+        }
+      }
+      board.setWinLength(frame.get(at + 7) & 0xff);
+      board.adoptBoardState(state);
+    }
+    return board;
+  }
+
+  /**
+   * Get the mark of a player.
+   * @param player Player, may be null
+   * @return mark or 0 if no player
+   */
+  private static char mark(final Player player) {
+    return player == null ? '\u0000' : player.getType();
+  }
+
+  /**
+   * Replace a mark outside ASCII.
+   * @param c mark
+   * @return c or '?'
+   */
+  private static char ascii(final char c) {
+    return c < 0x80 ? c : '?';
+  }
+
+  /**
+   * Rebuild a player from its mark.
+   * @param id player id
+   * @param type mark, 0 if no player
+   * @return Player or null
+   */
+  private static Player player(final int id, final char type) {
+    if (type == '\u0000') {
+      return null;
+    }
+    Player player = new Player();
+    player.setId(id);
+    player.setType(type);
+    return player;
+  }
+
+}
@@ -0,0 +1,163 @@
+package models;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Engine that keeps each player's marks in a bitmask.
+ * Cell (row, col) maps to bit row * dim + col, and a win is found by
+ * testing the precomputed masks of the k-long lines through the last
+ * move. Boards up to 8x8 fit in a long.
+ */
+public class BitBoardEngine implements BoardEngine {
+
+  /**
+   * Largest dimension whose cells fit in a long.
+   */
+  public static final int MAX_DIM = 8;
+
+  /**
+   * Line masks per board shape, keyed by dim * 64 + winLength.
+   */
+  private static final ConcurrentHashMap<Integer, long[][]> LINE_CACHE =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Line directions as row and column steps.
+   */
+  private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+  /**
+   * Dimension of the board.
+   */
+  private int dim;
+
+  /**
+   * Masks of the winning lines through each cell.
+   */
+  private long[][] lines;
+
+  /**
+   * Mark owning each bitmask, '\u0000' while unused.
+   */
+  private final char[] marks = new char[2];
+
+  /**
+   * Cells taken by each mark.
+   */
+  private final long[] bits = new long[2];
+
+  /**
+   * Build the masks of all k-long lines through every cell.
+   * @param dim board dimension
+   * @param winLength marks in a row needed to win
+   * @return masks indexed by cell
+   */
+  private static long[][] lines(final int dim, final int winLength) {
+    int[] counts = new int[dim * dim];
+    long[][] lines = new long[dim * dim][4 * winLength];
+    for (int row = 0; row < dim; row++) {
+      for (int col = 0; col < dim; col++) {
+        for (int[] d : DIRECTIONS) {
+          int endRow = row + (winLength - 1) * d[0];
+          int endCol = col + (winLength - 1) * d[1];
+          if (endRow >= dim || endCol < 0 || endCol >= dim) {
+            continue;
+          }
+          long line = 0;
+          for (int i = 0; i < winLength; i++) {
+            line |= 1L << ((row + i * d[0]) * dim + col + i * d[1]);
+          }
+          for (int i = 0; i < winLength; i++) {
+            int cell = (row + i * d[0]) * dim + col + i * d[1];
+            lines[cell][counts[cell]++] = line;
+          }
+        }
+      }
+    }
+    for (int cell = 0; cell < dim * dim; cell++) {
+      lines[cell] = Arrays.copyOf(lines[cell], counts[cell]);
+    }
+    return lines;
+  }
+
+  /**
+   * Get slot of the bitmask holding a mark, claiming a free one if needed.
+   * @param mark char
+   * @return slot index
+   */
+  private int slot(final char mark) {
+    if (marks[0] == mark) {
+      return 0;
+    } else if (marks[1] == mark) {
+      return 1;
+    } else if (marks[0] == '\u0000') {
+      marks[0] = mark;
+      return 0;
+    }
+    marks[1] = mark;
+    return 1;
+  }
+
+  @Override
+  public String name() {
+    return BITBOARD;
+  }
+
+  @Override
+  public BoardEngine copy(final char[][] state) {
+    BitBoardEngine copy = new BitBoardEngine();
+    copy.dim = dim;
+    copy.lines = lines;
+    copy.marks[0] = marks[0];
+    copy.marks[1] = marks[1];
+    copy.bits[0] = bits[0];
+    copy.bits[1] = bits[1];
+    return copy;
+  }
+
+  @Override
+  public void load(final char[][] state, final int winLength) {
+    if (state.length > MAX_DIM) {
+      throw new IllegalArgumentException("Bitboard supports boards up to "
+          + MAX_DIM + "x" + MAX_DIM);
+    }
+    dim = state.length;
+    lines = LINE_CACHE.computeIfAbsent(dim * Long.SIZE + winLength,
+        k -> lines(dim, winLength));
+    marks[0] = '\u0000';
+    marks[1] = '\u0000';
+    bits[0] = 0;
+    bits[1] = 0;
+    for (int i = 0; i < dim; i++) {
+      for (int j = 0; j < dim; j++) {
+        if (state[i][j] != '\u0000') {
+          place(i, j, state[i][j]);
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean isEmpty(final int row, final int col) {
+    return ((bits[0] | bits[1]) & (1L << (row * dim + col))) == 0;
+  }
+
+  @Override
+  public void place(final int row, final int col, final char mark) {
+    bits[slot(mark)] |= 1L << (row * dim + col);
+  }
+
+  @Override
+  public boolean isWin(final int row, final int col) {
+    int cell = row * dim + col;
+    long mine = (bits[0] & (1L << cell)) != 0 ? bits[0] : bits[1];
+    for (long line : lines[cell]) {
+      if ((mine & line) == line) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
@@ -0,0 +1,78 @@
+package models;
+
+/**
+ * Move bookkeeping and win detection behind a GameBoard.
+ * The board itself keeps the char[][] state that is sent to clients;
+ * an engine mirrors it in whatever form makes its checks cheap.
+ */
+public interface BoardEngine {
+
+  /**
+   * Name of the engine backed by the char[][] board state.
+   */
+  String ARRAY = "array";
+
+  /**
+   * Name of the engine backed by per-player bitmasks.
+   */
+  String BITBOARD = "bitboard";
+
+  /**
+   * Create an engine by name.
+   * @param name engine name
+   * @return BoardEngine
+   */
+  static BoardEngine forName(final String name) {
+    if (name == null || ARRAY.equals(name)) {
+      return new ArrayBoardEngine();
+    } else if (BITBOARD.equals(name)) {
+      return new BitBoardEngine();
+    }
+    throw new IllegalArgumentException("Unknown board engine: " + name);
+  }
+
+  /**
+   * Get the name forName creates this kind of engine by.
+   * @return engine name
+   */
+  String name();
+
+  /**
+   * Copy the engine for a copy of its board, without scanning the cells.
+   * @param state copy of the board state, owned by the copied GameBoard
+   * @return BoardEngine
+   */
+  BoardEngine copy(char[][] state);
+
+  /**
+   * Rebuild engine state from a full board.
+   * @param state board state owned by the GameBoard
+   * @param winLength marks in a row needed to win
+   */
+  void load(char[][] state, int winLength);
+
+  /**
+   * Check if a cell is free.
+   * @param row int
+   * @param col int
+   * @return boolean
+   */
+  boolean isEmpty(int row, int col);
+
+  /**
+   * Record a mark placed on the board.
+   * @param row int
+   * @param col int
+   * @param mark char
+   */
+  void place(int row, int col, char mark);
+
+  /**
+   * Check if the mark on a cell completes a line.
+   * @param row int
+   * @param col int
+   * @return boolean
+   */
+  boolean isWin(int row, int col);
+
+}
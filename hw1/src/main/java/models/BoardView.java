@@ -0,0 +1,88 @@
+package models;
+
+import java.nio.CharBuffer;
+
+/**
+ * Read-only view of the cells of a GameBoard, reading the board's own
+ * state instead of a copy. A view of a published board never changes,
+ * since published boards are never changed; a view of a board being
+ * updated follows the updates. Only toArray copies.
+ */
+public final class BoardView {
+
+  /**
+   * Board viewed.
+   */
+  private final GameBoard board;
+
+  /**
+   * Create a view.
+   * @param viewed GameBoard
+   */
+  BoardView(final GameBoard viewed) {
+    this.board = viewed;
+  }
+
+  /**
+   * Get dimension of the board.
+   * @return int, 0 before a board state is set
+   */
+  public int dim() {
+    char[][] state = board.state();
+    return state == null ? 0 : state.length;
+  }
+
+  /**
+   * Get the mark on a cell.
+   * @param row int
+   * @param col int
+   * @return mark, 0 if empty
+   */
+  public char cell(final int row, final int col) {
+    return board.state()[row][col];
+  }
+
+  /**
+   * Check if a cell is free.
+   * @param row int
+   * @param col int
+   * @return boolean
+   */
+  public boolean isEmpty(final int row, final int col) {
+    return board.state()[row][col] == '\u0000';
+  }
+
+  /**
+   * Get number of taken cells.
+   * @return int
+   */
+  public int moveCount() {
+    return board.getMoveCount();
+  }
+
+  /**
+   * Get a row as read-only characters, backed by the board.
+   * @param row int
+   * @return CharSequence of length dim
+   */
+  public CharSequence row(final int row) {
+    return CharBuffer.wrap(board.state()[row]).asReadOnlyBuffer();
+  }
+
+  /**
+   * Get the JSON of the board's current version.
+   * @return EncodedBoard
+   */
+  public EncodedBoard encoded() {
+    return board.encoded();
+  }
+
+  /**
+   * Copy the cells into a new array the caller may change.
+   * @return char[dim][dim]
+   */
+  public char[][] toArray() {
+    return board.getBoardState();
+  }
+
+}
@@ -0,0 +1,117 @@
+package models;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * GameBoard JSON encoded once for one version of the board and shared by
+ * every HTTP reply and broadcast of that version. The ETag names this
+ * server run, the board's origin and the version, so it never matches a
+ * board of an earlier run or of an earlier game under the same id.
+ */
+public final class EncodedBoard {
+
+  /**
+   * Start of this server run, part of every ETag.
+   */
+  private static final String EPOCH =
+      Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+  /**
+   * Encoder of each thread; JsonCodec.get() may hold a reply.
+   */
+  private static final ThreadCache<JsonCodec> CODECS =
+      new ThreadCache<>(JsonCodec::new);
+
+  /**
+   * Board version this encoding is of.
+   */
+  private final long version;
+
+  /**
+   * UTF-8 JSON.
+   */
+  private final byte[] json;
+
+  /**
+   * Entity tag of the version.
+   */
+  private final String etag;
+
+  /**
+   * JSON as text, built on first use by a text frame.
+   */
+  private volatile String text;
+
+  /**
+   * Encode a board.
+   * @param v version of the board
+   * @param board GameBoard
+   */
+  EncodedBoard(final long v, final GameBoard board) {
+    JsonCodec codec = CODECS.get().encode(board);
+    version = v;
+    json = Arrays.copyOf(codec.array(), codec.length());
+    etag = "\"" + EPOCH + "-"
+        + Long.toString(board.origin(), Character.MAX_RADIX) + "-"
+        + Long.toString(v, Character.MAX_RADIX) + "\"";
+  }
+
+  /**
+   * Get board version this encoding is of.
+   * @return long
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Get entity tag of the version, quoted.
+   * @return String
+   */
+  public String etag() {
+    return etag;
+  }
+
+  /**
+   * Get number of JSON bytes.
+   * @return int
+   */
+  public int length() {
+    return json.length;
+  }
+
+  /**
+   * Write the JSON to a stream.
+   * @param out OutputStream
+   * @throws IOException on write error
+   */
+  public void writeTo(final OutputStream out) throws IOException {
+    out.write(json);
+  }
+
+  /**
+   * Get the JSON as text.
+   * @return JSON text
+   */
+  public String text() {
+    String t = text;
+    if (t == null) {
+      t = new String(json, StandardCharsets.UTF_8);
+      text = t;
+    }
+    return t;
+  }
+
+  /**
+   * Get the JSON as text.
+   * @return JSON text
+   */
+  @Override
+  public String toString() {
+    return text();
+  }
+
+}
@@ -0,0 +1,884 @@
+package models;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * GameStore that appends fixed-size binary records to memory-mapped
+ * segment files.
+ * A segment holds a fixed number of records. When it is full the next
+ * one is started, and every few segments the closed ones are folded into
+ * a snapshot holding only the records still needed. Recovery replays the
+ * latest snapshot and the segments written after it.
+ */
+public class EventLogStore implements GameStore {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(EventLogStore.class);
+
+  /**
+   * Unsafe instance and its invokeCleaner method, which unmap a segment
+   * right away instead of when it is garbage collected; null if the JDK
+   * does not offer them.
+   */
+  private static final Object UNSAFE;
+  private static final Method INVOKE_CLEANER;
+
+  static {
+    Object unsafe = null;
+    Method invokeCleaner = null;
+    try {
+      Class<?> type = Class.forName("sun.misc.Unsafe");
+      Field field = type.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      unsafe = field.get(null);
+      invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      LOG.debug("Segments are unmapped by the garbage collector", e);
+    }
+    UNSAFE = unsafe;
+    INVOKE_CLEANER = invokeCleaner;
+  }
+
+  /**
+   * Log directory used by the game server.
+   */
+  public static final String DEFAULT_DIR = "tic-tac-toe-log";
+
+  /**
+   * Records per segment by default, 3 MiB of log.
+   */
+  public static final int DEFAULT_SEGMENT_RECORDS = 1 << 16;
+
+  /**
+   * Segments closed between two snapshots by default.
+   */
+  public static final int DEFAULT_SNAPSHOT_INTERVAL = 4;
+
+  /**
+   * Bytes per record.
+   */
+  static final int RECORD_SIZE = 48;
+
+  /**
+   * Longest game id a record can hold.
+   */
+  static final int MAX_ID_LENGTH = 32;
+
+  /**
+   * Dimension of boards stored without a shape record.
+   */
+  private static final int DIM = 3;
+
+  /**
+   * Record layout: CRC32 of bytes 4 to 47, then the fields below and the
+   * game id as zero-padded ASCII. A record whose kind is not one of the
+   * kinds below, such as the zeroes of unwritten space, ends the log.
+   */
+  private static final int KIND_AT = 4;
+  private static final int PLAYER_AT = 5;
+  private static final int WINNER_AT = 6;
+  private static final int DRAW_AT = 7;
+  private static final int ROW_AT = 8;
+  private static final int COLUMN_AT = 10;
+  private static final int TYPE_AT = 12;
+  private static final int ID_AT = 16;
+
+  /**
+   * Record kinds.
+   */
+  private static final byte MOVE = 1;
+  private static final byte PLAYER = 2;
+  private static final byte SHAPE = 3;
+  private static final byte CLEAR = 4;
+
+  /**
+   * Engines a shape record stores by index in its type field.
+   */
+  private static final String[] ENGINES =
+      {BoardEngine.ARRAY, BoardEngine.BITBOARD};
+
+  /**
+   * File names are a prefix, a zero-padded sequence number and a suffix.
+   * A snapshot numbered n covers every segment below n.
+   */
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SNAPSHOT_PREFIX = "snapshot-";
+  private static final String SUFFIX = ".log";
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  /**
+   * Directory holding segments and snapshots.
+   */
+  private final Path dir;
+
+  /**
+   * Records per segment.
+   */
+  private final int segmentRecords;
+
+  /**
+   * Segments closed between two snapshots.
+   */
+  private final int snapshotInterval;
+
+  /**
+   * Whether commit flushes the mapped segment to disk.
+   */
+  private final boolean syncOnCommit;
+
+  /**
+   * Record being encoded.
+   */
+  private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+
+  /**
+   * Checksum of records written and read.
+   */
+  private final CRC32 crc = new CRC32();
+
+  /**
+   * Segment appended to, positioned after its last record.
+   */
+  private MappedByteBuffer segment = null;
+
+  /**
+   * Sequence number of the segment appended to.
+   */
+  private long segmentSeq;
+
+  /**
+   * Sequence number of the latest snapshot, 0 if there is none.
+   */
+  private long snapshotSeq;
+
+  /**
+   * Segments closed since the latest snapshot.
+   */
+  private int closedSegments;
+
+  /**
+   * Whether records were appended since the last flush.
+   */
+  private boolean dirty;
+
+  /**
+   * Games replayed from the log, dropped on every write.
+   */
+  private Map<String, GameLog> replayed = null;
+
+  /**
+   * Create event log in the default directory.
+   */
+  public EventLogStore() {
+    this(DEFAULT_DIR);
+  }
+
+  /**
+   * Create event log in a given directory.
+   * @param directory path of the log directory
+   */
+  public EventLogStore(final String directory) {
+    this(directory, DEFAULT_SEGMENT_RECORDS, DEFAULT_SNAPSHOT_INTERVAL,
+        false);
+  }
+
+  /**
+   * Create event log with given segment size and snapshot interval.
+   * Without syncOnCommit the log is flushed when a segment is closed,
+   * like SQLite with synchronous=NORMAL: a process crash loses nothing,
+   * a power loss may lose the last commits.
+   * @param directory path of the log directory
+   * @param records records per segment, at least 1
+   * @param interval segments closed between snapshots, at least 1
+   * @param sync whether commit flushes the mapped segment to disk
+   */
+  public EventLogStore(final String directory, final int records,
+      final int interval, final boolean sync) {
+    if (records < 1 || interval < 1) {
+      throw new IllegalArgumentException("Need positive segment size and "
+          + "snapshot interval");
+    }
+    this.dir = Paths.get(directory);
+    this.segmentRecords = records;
+    this.snapshotInterval = interval;
+    this.syncOnCommit = sync;
+  }
+
+  /**
+   * Open the log, dropping files left behind by an interrupted snapshot.
+   * @throws UncheckedIOException if the log cannot be opened
+   */
+  @Override
+  public synchronized void start() {
+    try {
+      Files.createDirectories(dir);
+      List<Long> snapshots = sequences(SNAPSHOT_PREFIX);
+      snapshotSeq = snapshots.isEmpty() ? 0
+          : snapshots.get(snapshots.size() - 1);
+      deleteBefore(SNAPSHOT_PREFIX, snapshotSeq);
+      deleteBefore(SEGMENT_PREFIX, snapshotSeq);
+      try (DirectoryStream<Path> temps =
+          Files.newDirectoryStream(dir, "*" + TEMP_SUFFIX)) {
+        for (Path temp : temps) {
+          Files.delete(temp);
+        }
+      }
+      List<Long> segments = sequences(SEGMENT_PREFIX);
+      if (segments.isEmpty()) {
+        segmentSeq = snapshotSeq;
+        closedSegments = 0;
+      } else {
+        segmentSeq = segments.get(segments.size() - 1);
+        closedSegments = segments.size() - 1;
+      }
+      segment = openSegment(segmentSeq);
+      segment.position(validRecords(segment) * RECORD_SIZE);
+      dirty = false;
+      replayed = null;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open event log " + dir, e);
+    }
+  }
+
+  /**
+   * Remove everything stored for one game.
+   * @param game String
+   */
+  @Override
+  public synchronized void clear(final String game) {
+    append(CLEAR, game, 0, 0, 0, 0, 0, '\u0000');
+  }
+
+  /**
+   * Store board shape and engine of a game.
+   * @param game String
+   * @param dim int
+   * @param winLength int
+   * @param engine BoardEngine name
+   */
+  @Override
+  public synchronized void insertGame(final String game, final int dim,
+      final int winLength, final String engine) {
+    int index = Arrays.asList(ENGINES).indexOf(engine);
+    if (index < 0) {
+      throw new IllegalArgumentException("Unknown board engine: " + engine);
+    }
+    append(SHAPE, game, 0, 0, 0, dim, winLength, (char) index);
+  }
+
+  /**
+   * Store a player of a game.
+   * @param game String
+   * @param id int
+   * @param type char
+   */
+  @Override
+  public synchronized void insertPlayer(final String game, final int id,
+      final char type) {
+    append(PLAYER, game, id, 0, 0, 0, 0, type);
+  }
+
+  /**
+   * Store a move of a game.
+   * @param game String
+   * @param player int
+   * @param x int
+   * @param y int
+   * @param winner int
+   * @param draw int
+   */
+  @Override
+  public synchronized void insertBoard(final String game, final int player,
+      final int x, final int y, final int winner, final int draw) {
+    append(MOVE, game, player, winner, draw, x, y, '\u0000');
+  }
+
+  /**
+   * Flush appended records to disk if the log syncs on commit.
+   */
+  @Override
+  public synchronized void commit() {
+    if (syncOnCommit && dirty) {
+      segment.force();
+      dirty = false;
+    }
+  }
+
+  /**
+   * Get ids of all unfinished games that have a stored player.
+   * @return game ids
+   */
+  @Override
+  public synchronized List<String> getGames() {
+    List<String> games = new ArrayList<>();
+    for (Map.Entry<String, GameLog> entry : replayed().entrySet()) {
+      if (entry.getValue().hasPlayer()
+          && !entry.getValue().isFinished()) {
+        games.add(entry.getKey());
+      }
+    }
+    return games;
+  }
+
+  /**
+   * Update board of one game after reboot.
+   * @param game String
+   * @param board GameBoard
+   */
+  @Override
+  public synchronized void inProgress(final String game,
+      final GameBoard board) {
+    GameLog log = replayed().get(game);
+    if (log == null) {
+      log = new GameLog();
+    }
+    log.restore(board);
+  }
+
+  /**
+   * Flush and close the log.
+   */
+  @Override
+  public synchronized void close() {
+    if (segment != null) {
+      segment.force();
+      unmap(segment);
+      segment = null;
+    }
+    replayed = null;
+  }
+
+  /**
+   * Encode a record and append it to the current segment.
+   * @param kind record kind
+   * @param game game id
+   * @param player player id
+   * @param winner int
+   * @param draw int
+   * @param row row, or dimension of a shape record
+   * @param column column, or win length of a shape record
+   * @param type player type
+   */
+  private void append(final byte kind, final String game, final int player,
+      final int winner, final int draw, final int row, final int column,
+      final char type) {
+    if (game.length() > MAX_ID_LENGTH) {
+      throw new IllegalArgumentException("Game id too long: " + game);
+    }
+    if (!segment.hasRemaining()) {
+      rotate();
+    }
+    record.put(KIND_AT, kind);
+    record.put(PLAYER_AT, (byte) player);
+    record.put(WINNER_AT, (byte) winner);
+    record.put(DRAW_AT, (byte) draw);
+    record.putShort(ROW_AT, (short) row);
+    record.putShort(COLUMN_AT, (short) column);
+    record.putChar(TYPE_AT, type);
+    for (int i = 0; i < MAX_ID_LENGTH; i++) {
+      char c = i < game.length() ? game.charAt(i) : '\u0000';
+      if (c > Byte.MAX_VALUE) {
+        throw new IllegalArgumentException("Game id not ASCII: " + game);
+      }
+      record.put(ID_AT + i, (byte) c);
+    }
+    crc.reset();
+    record.position(KIND_AT);
+    crc.update(record);
+    record.putInt(0, (int) crc.getValue());
+    record.clear();
+    segment.put(record);
+    record.clear();
+    dirty = true;
+    replayed = null;
+  }
+
+  /**
+   * Close the full segment and start the next one, taking a snapshot
+   * once enough segments were closed since the last one. If the next
+   * segment cannot be opened the full one stays current, so appends keep
+   * failing until a later call opens it; a failed snapshot is retried at
+   * the next rotation.
+   * @throws UncheckedIOException if the next segment cannot be opened
+   */
+  private void rotate() {
+    MappedByteBuffer full = segment;
+    try {
+      full.force();
+      segment = openSegment(segmentSeq + 1);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open segment "
+          + (segmentSeq + 1), e);
+    }
+    unmap(full);
+    segmentSeq++;
+    closedSegments++;
+    if (closedSegments >= snapshotInterval) {
+      try {
+        snapshot();
+      } catch (IOException e) {
+        LOG.warn("Failed to snapshot event log {}, retrying at the next "
+            + "rotation", dir, e);
+      }
+    }
+  }
+
+  /**
+   * Fold the latest snapshot and all closed segments into a new snapshot
+   * and delete the files it replaces.
+   * @throws IOException on file error
+   */
+  private void snapshot() throws IOException {
+    Map<String, GameLog> games = replay(segmentSeq);
+    Path done = file(SNAPSHOT_PREFIX, segmentSeq);
+    Path temp = done.resolveSibling(done.getFileName() + TEMP_SUFFIX);
+    // Written the same way as the segments, so replay reads both alike
+    EventLogStore writer = new EventLogStore(dir.toString(),
+        Math.max(1, count(games)), 1, false);
+    writer.segment = map(temp, writer.segmentRecords);
+    try {
+      for (Map.Entry<String, GameLog> entry : games.entrySet()) {
+        entry.getValue().writeTo(writer, entry.getKey());
+      }
+    } finally {
+      writer.close();
+    }
+    Files.move(temp, done, StandardCopyOption.ATOMIC_MOVE);
+    snapshotSeq = segmentSeq;
+    closedSegments = 0;
+    deleteBefore(SNAPSHOT_PREFIX, snapshotSeq);
+    deleteBefore(SEGMENT_PREFIX, snapshotSeq);
+  }
+
+  /**
+   * Count records a snapshot of some games needs.
+   * @param games games by id
+   * @return int
+   */
+  private static int count(final Map<String, GameLog> games) {
+    int records = 0;
+    for (GameLog log : games.values()) {
+      records += log.records();
+    }
+    return records;
+  }
+
+  /**
+   * Get games replayed from the whole log, replaying it if needed.
+   * @return games by id
+   * @throws UncheckedIOException if a log file cannot be read
+   */
+  private Map<String, GameLog> replayed() {
+    if (replayed == null) {
+      try {
+        replayed = replay(segmentSeq + 1);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to replay event log " + dir,
+            e);
+      }
+    }
+    return replayed;
+  }
+
+  /**
+   * Replay the latest snapshot and the segments below a sequence number.
+   * @param end first segment not replayed
+   * @return games by id
+   * @throws IOException on file error
+   */
+  private Map<String, GameLog> replay(final long end) throws IOException {
+    Map<String, GameLog> games = new LinkedHashMap<>();
+    if (snapshotSeq > 0) {
+      replay(read(file(SNAPSHOT_PREFIX, snapshotSeq)),
+          games);
+    }
+    for (long seq : sequences(SEGMENT_PREFIX)) {
+      if (seq >= end) {
+        break;
+      }
+      if (seq == segmentSeq) {
+        ByteBuffer written = segment.duplicate();
+        written.flip();
+        replay(written, games);
+      } else {
+        replay(read(file(SEGMENT_PREFIX, seq)), games);
+      }
+    }
+    return games;
+  }
+
+  /**
+   * Apply the valid records of a buffer to some games.
+   * @param buf log contents
+   * @param games games by id
+   */
+  private void replay(final ByteBuffer buf, final Map<String, GameLog> games) {
+    int records = validRecords(buf);
+    for (int i = 0; i < records; i++) {
+      int at = i * RECORD_SIZE;
+      String game = readId(buf, at);
+      byte kind = buf.get(at + KIND_AT);
+      if (kind == CLEAR) {
+        games.remove(game);
+        continue;
+      }
+      GameLog log = games.get(game);
+      if (log == null) {
+        log = new GameLog();
+        games.put(game, log);
+      }
+      if (kind == SHAPE) {
+        log.dim = buf.getShort(at + ROW_AT);
+        log.winLength = buf.getShort(at + COLUMN_AT);
+        log.engine = ENGINES[buf.getChar(at + TYPE_AT)];
+      } else if (kind == PLAYER) {
+        log.setType(buf.get(at + PLAYER_AT), buf.getChar(at + TYPE_AT));
+      } else if (kind == MOVE) {
+        log.addMove(buf.get(at + PLAYER_AT), buf.getShort(at + ROW_AT),
+            buf.getShort(at + COLUMN_AT), buf.get(at + WINNER_AT),
+            buf.get(at + DRAW_AT));
+      }
+    }
+  }
+
+  /**
+   * Count the records at the start of a buffer of a known kind whose
+   * checksum matches. The first other record is unwritten space or a
+   * torn write, and it and anything after it are ignored.
+   * @param buf log contents from position 0
+   * @return int
+   */
+  private int validRecords(final ByteBuffer buf) {
+    ByteBuffer view = buf.duplicate();
+    int records = 0;
+    for (int at = 0; at + RECORD_SIZE <= buf.limit(); at += RECORD_SIZE) {
+      byte kind = buf.get(at + KIND_AT);
+      if (kind < MOVE || kind > CLEAR) {
+        break;
+      }
+      int sum = buf.getInt(at);
+      view.limit(at + RECORD_SIZE).position(at + KIND_AT);
+      crc.reset();
+      crc.update(view);
+      if ((int) crc.getValue() != sum) {
+        break;
+      }
+      records++;
+    }
+    return records;
+  }
+
+  /**
+   * Decode the game id of a record.
+   * @param buf log contents
+   * @param at offset of the record
+   * @return game id
+   */
+  private static String readId(final ByteBuffer buf, final int at) {
+    byte[] id = new byte[MAX_ID_LENGTH];
+    int length = 0;
+    while (length < MAX_ID_LENGTH) {
+      byte b = buf.get(at + ID_AT + length);
+      if (b == 0) {
+        break;
+      }
+      id[length++] = b;
+    }
+    return new String(id, 0, length, StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Map a segment for appending, creating it if needed.
+   * @param seq sequence number
+   * @return MappedByteBuffer positioned at 0
+   * @throws IOException on file error
+   */
+  private MappedByteBuffer openSegment(final long seq) throws IOException {
+    return map(file(SEGMENT_PREFIX, seq), segmentRecords);
+  }
+
+  /**
+   * Map a log file for appending, creating it if needed.
+   * @param file Path
+   * @param records capacity in records
+   * @return MappedByteBuffer positioned at 0
+   * @throws IOException on file error
+   */
+  private static MappedByteBuffer map(final Path file, final int records)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open(file,
+        StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0,
+          (long) records * RECORD_SIZE);
+    }
+  }
+
+  /**
+   * Read a closed log file; it is read only once per replay, so it is
+   * copied to the heap rather than mapped and left for the collector.
+   * @param file Path
+   * @return ByteBuffer
+   * @throws IOException on file error
+   */
+  private static ByteBuffer read(final Path file) throws IOException {
+    return ByteBuffer.wrap(Files.readAllBytes(file));
+  }
+
+  /**
+   * Release the mapping of a segment no longer appended to. Nothing may
+   * touch the buffer, or a view of it, afterwards.
+   * @param buffer MappedByteBuffer
+   */
+  private static void unmap(final MappedByteBuffer buffer) {
+    if (INVOKE_CLEANER == null) {
+      return;
+    }
+    try {
+      INVOKE_CLEANER.invoke(UNSAFE, buffer);
+    } catch (ReflectiveOperationException e) {
+      LOG.debug("Failed to unmap a segment", e);
+    }
+  }
+
+  /**
+   * Get path of a log file.
+   * @param prefix file prefix
+   * @param seq sequence number
+   * @return Path
+   */
+  private Path file(final String prefix, final long seq) {
+    return dir.resolve(String.format("%s%016d%s", prefix, seq, SUFFIX));
+  }
+
+  /**
+   * List sequence numbers of log files with a prefix in ascending order.
+   * @param prefix file prefix
+   * @return sequence numbers
+   * @throws IOException on file error
+   */
+  private List<Long> sequences(final String prefix) throws IOException {
+    List<Long> seqs = new ArrayList<>();
+    try (DirectoryStream<Path> files =
+        Files.newDirectoryStream(dir, prefix + "*" + SUFFIX)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        seqs.add(Long.parseLong(name.substring(prefix.length(),
+            name.length() - SUFFIX.length())));
+      }
+    }
+    Collections.sort(seqs);
+    return seqs;
+  }
+
+  /**
+   * Delete log files with a prefix below a sequence number.
+   * @param prefix file prefix
+   * @param seq first sequence number kept
+   * @throws IOException on file error
+   */
+  private void deleteBefore(final String prefix, final long seq)
+      throws IOException {
+    for (long old : sequences(prefix)) {
+      if (old < seq) {
+        Files.delete(file(prefix, old));
+      }
+    }
+  }
+
+  /**
+   * State of one game folded from its records.
+   */
+  private static final class GameLog {
+
+    /**
+     * Values per move: player, row, column, winner, draw.
+     */
+    private static final int MOVE_FIELDS = 5;
+
+    /**
+     * Board dimension, 0 if no shape was stored.
+     */
+    private int dim;
+
+    /**
+     * Marks in a row needed to win, 0 if no shape was stored.
+     */
+    private int winLength;
+
+    /**
+     * BoardEngine name, the array engine if no shape was stored.
+     */
+    private String engine = BoardEngine.ARRAY;
+
+    /**
+     * Player types by id, 0 if not stored.
+     */
+    private final char[] types = new char[3];
+
+    /**
+     * Moves in the order they were made.
+     */
+    private int[] moves = new int[MOVE_FIELDS * 8];
+
+    /**
+     * Number of moves.
+     */
+    private int moveCount;
+
+    /**
+     * Store the type of a player.
+     * @param id player id
+     * @param type char
+     */
+    private void setType(final int id, final char type) {
+      if (id == 1 || id == 2) {
+        types[id] = type;
+      }
+    }
+
+    /**
+     * Check if a player was stored.
+     * @return boolean
+     */
+    private boolean hasPlayer() {
+      return types[1] != '\u0000' || types[2] != '\u0000';
+    }
+
+    /**
+     * Check if a stored move won or drew the game.
+     * @return boolean
+     */
+    private boolean isFinished() {
+      for (int i = 0; i < moveCount * MOVE_FIELDS; i += MOVE_FIELDS) {
+        int winner = moves[i + 3];
+        if (winner == 1 || winner == 2 || moves[i + 4] == 1) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Record a move.
+     * @param player int
+     * @param row int
+     * @param column int
+     * @param winner int
+     * @param draw int
+     */
+    private void addMove(final int player, final int row, final int column,
+        final int winner, final int draw) {
+      int at = moveCount * MOVE_FIELDS;
+      if (at == moves.length) {
+        moves = Arrays.copyOf(moves, moves.length * 2);
+      }
+      moves[at] = player;
+      moves[at + 1] = row;
+      moves[at + 2] = column;
+      moves[at + 3] = winner;
+      moves[at + 4] = draw;
+      moveCount++;
+    }
+
+    /**
+     * Count records needed to store this game.
+     * @return int
+     */
+    private int records() {
+      int records = moveCount + (dim > 0 ? 1 : 0);
+      for (int id = 1; id <= 2; id++) {
+        if (types[id] != '\u0000') {
+          records++;
+        }
+      }
+      return records;
+    }
+
+    /**
+     * Append the records of this game to a log.
+     * @param log EventLogStore
+     * @param game game id
+     */
+    private void writeTo(final EventLogStore log, final String game) {
+      if (dim > 0) {
+        log.insertGame(game, dim, winLength, engine);
+      }
+      for (int id = 1; id <= 2; id++) {
+        if (types[id] != '\u0000') {
+          log.insertPlayer(game, id, types[id]);
+        }
+      }
+      for (int i = 0; i < moveCount * MOVE_FIELDS; i += MOVE_FIELDS) {
+        log.insertBoard(game, moves[i], moves[i + 1], moves[i + 2],
+            moves[i + 3], moves[i + 4]);
+      }
+    }
+
+    /**
+     * Rebuild a board from this game.
+     * @param board GameBoard
+     */
+    private void restore(final GameBoard board) {
+      int size = dim > 0 ? dim : DIM;
+      char[][] state = new char[size][size];
+      int move1 = 0;
+      int move2 = 0;
+      Player p1 = new Player();
+      Player p2 = new Player();
+      p1.setId(1);
+      p2.setId(2);
+      p1.setType(types[1]);
+      p2.setType(types[2]);
+      for (int i = 0; i < moveCount * MOVE_FIELDS; i += MOVE_FIELDS) {
+        int winner = moves[i + 3];
+        if (winner == 1 || winner == 2) {
+          board.setWinner(winner);
+        }
+        if (moves[i + 4] == 1) {
+          board.setIsDraw(true);
+        }
+        if (moves[i] == 1) {
+          state[moves[i + 1]][moves[i + 2]] = p1.getType();
+          move1++;
+        } else {
+          state[moves[i + 1]][moves[i + 2]] = p2.getType();
+          move2++;
+        }
+      }
+      board.setGameStarted(types[1] != '\u0000' && types[2] != '\u0000');
+      board.setTurn(1 + move1 - move2);
+      board.setWinLength(dim > 0 ? winLength : GameBoard.DEFAULT_WIN_LENGTH);
+      board.setEngine(BoardEngine.forName(engine));
+      board.adoptBoardState(state);
+      board.setP1(p1);
+      board.setP2(p2);
+    }
+  }
+
+}
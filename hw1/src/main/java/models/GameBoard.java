@@ -1,7 +1,30 @@
 package models;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 public class GameBoard {
 
+  /**
+   * Marks in a row needed to win on a classic board.
+   */
+  public static final int DEFAULT_WIN_LENGTH = 3;
+
+  /**
+   * Largest board dimension a game can be started with.
+   */
+  public static final int MAX_DIM = 19;
+
+  /**
+   * Powers of ten up to the largest an int can reach.
+   */
+  private static final long[] POWERS = {1L, 10L, 100L, 1000L, 10000L,
+      100000L, 1000000L, 10000000L, 100000000L, 1000000000L, 10000000000L};
+
+  /**
+   * Most digits of a move code computed without overflowing a long.
+   */
+  private static final int MAX_LONG_CODE_DIGITS = 18;
+
   /**
    * Player who starts the game.
    */
@@ -28,7 +51,7 @@ public class GameBoard {
   private char[][] boardState;
 
   /**
-   * Player wins a game when three in a row/column.
+   * Player wins a game when winLength in a row/column/diagonal.
    */
   private int winner;
 
@@ -37,6 +60,160 @@ public class GameBoard {
    */
   private boolean isDraw;
 
+  /**
+   * Engine validating moves and detecting wins, not sent to clients.
+   */
+  private transient BoardEngine engine = new ArrayBoardEngine();
+
+  /**
+   * Marks in a row needed to win, not sent to clients.
+   */
+  private transient int winLength = DEFAULT_WIN_LENGTH;
+
+  /**
+   * Number of taken cells, kept up to date by every board update.
+   */
+  private transient int moves;
+
+  /**
+   * Source of board origins; drawn from once per new board, not per
+   * change, so games changing at once do not contend on it.
+   */
+  private static final AtomicLong ORIGINS = new AtomicLong();
+
+  /**
+   * Origin of the board, shared by its copies, so that a game restarted
+   * under the same id never repeats an ETag.
+   */
+  private final transient long origin;
+
+  /**
+   * Version of the state sent to clients, raised by every change; only
+   * the thread changing the board writes it.
+   */
+  private transient volatile long version;
+
+  /**
+   * Read-only view of the cells.
+   */
+  private final transient BoardView view = new BoardView(this);
+
+  /**
+   * JSON of the latest encoded version.
+   */
+  private transient volatile EncodedBoard encoded;
+
+  /**
+   * Time the board was last registered or changed, in epoch millis.
+   */
+  private transient long updatedAt;
+
+  /**
+   * Create an empty board with a new origin.
+   */
+  public GameBoard() {
+    origin = ORIGINS.incrementAndGet();
+  }
+
+  /**
+   * Create an empty board for a copy of another.
+   * @param original GameBoard whose origin the copy keeps
+   */
+  private GameBoard(final GameBoard original) {
+    origin = original.origin;
+  }
+
+  /**
+   * Get the time the board was last registered or changed.
+   * @return epoch millis, 0 if never stamped
+   */
+  public long getUpdatedAt() {
+    return updatedAt;
+  }
+
+  /**
+   * Stamp the time the board was registered or changed.
+   * @param millis epoch millis
+   */
+  public void setUpdatedAt(final long millis) {
+    this.updatedAt = millis;
+  }
+
+  /**
+   * Check if the game was won or drawn.
+   * @return boolean
+   */
+  public boolean isFinished() {
+    return winner != 0 || isDraw;
+  }
+
+  /**
+   * Get version of the state sent to clients.
+   * @return long
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Get the origin of the board and its copies.
+   * @return long
+   */
+  long origin() {
+    return origin;
+  }
+
+  /**
+   * Get the JSON of the current version, encoding it on first use.
+   * @return EncodedBoard
+   */
+  public EncodedBoard encoded() {
+    EncodedBoard e = encoded;
+    long v = version;
+    if (e == null || e.getVersion() != v) {
+      e = new EncodedBoard(v, this);
+      encoded = e;
+    }
+    return e;
+  }
+
+  /**
+   * Copy the board, e.g. to change it while readers keep the original.
+   * The copy starts at the same version and shares its JSON until it is
+   * changed.
+   * @return GameBoard
+   */
+  public GameBoard copy() {
+    GameBoard copy = new GameBoard(this);
+    copy.p1 = p1;
+    copy.p2 = p2;
+    copy.gameStarted = gameStarted;
+    copy.turn = turn;
+    copy.winner = winner;
+    copy.isDraw = isDraw;
+    copy.winLength = winLength;
+    copy.moves = moves;
+    copy.updatedAt = updatedAt;
+    if (boardState != null) {
+      char[][] state = new char[boardState.length][];
+      for (int i = 0; i < state.length; i++) {
+        state[i] = boardState[i].clone();
+      }
+      copy.boardState = state;
+    }
+    copy.engine = engine.copy(copy.boardState);
+    copy.version = version;
+    copy.encoded = encoded;
+    return copy;
+  }
+
+  /**
+   * Move to a new version after a change clients can see.
+   */
+  private void changed() {
+    version++;
+  }
+
   /**
    * Get player 1.
    * @return Player 1 object.
@@ -51,6 +228,7 @@ public class GameBoard {
    */
   public void setP1(final Player p) {
     this.p1 =  p;
+    changed();
   }
 
   /**
@@ -67,6 +245,7 @@ public class GameBoard {
    */
   public void setP2(final Player p) {
     this.p2 = p;
+    changed();
   }
 
   /**
@@ -83,6 +262,7 @@ public class GameBoard {
    */
   public void setGameStarted(final boolean started) {
     this.gameStarted = started;
+    changed();
   }
 
   /**
@@ -107,6 +287,7 @@ public class GameBoard {
    */
   public void setTurn(final int t) {
     this.turn = t;
+    changed();
   }
 
   /**
@@ -114,6 +295,7 @@ public class GameBoard {
    */
   public void switchTurn() {
     turn = turn % 2 + 1;
+    changed();
   }
 
   /**
@@ -124,28 +306,113 @@ public class GameBoard {
     int dim = state.length;
     char[][] copy = new char[dim][dim];
     for (int i = 0; i < dim; i++) {
-      for (int j = 0; j < dim; j++) {
-        copy[i][j] = state[i][j];
+      System.arraycopy(state[i], 0, copy[i], 0, dim);
+    }
+    adoptBoardState(copy);
+  }
+
+  /**
+   * Set Game Board state to an array nobody else holds, without copying.
+   * @param state char[dim][dim] the caller drops
+   */
+  void adoptBoardState(final char[][] state) {
+    int taken = 0;
+    for (char[] row : state) {
+      for (char c : row) {
+        if (c != '\u0000') {
+          taken++;
+        }
       }
     }
-    this.boardState = copy;
+    this.boardState = state;
+    this.moves = taken;
+    engine.load(state, winLength);
+    changed();
+  }
+
+  /**
+   * Set marks in a row needed to win.
+   * @param length int
+   */
+  public void setWinLength(final int length) {
+    this.winLength = length;
+    if (boardState != null) {
+      engine.load(boardState, length);
+    }
+  }
+
+  /**
+   * Get marks in a row needed to win.
+   * @return winLength int
+   */
+  public int getWinLength() {
+    return winLength;
+  }
+
+  /**
+   * Get number of taken cells.
+   * @return int
+   */
+  public int getMoveCount() {
+    return moves;
+  }
+
+  /**
+   * Get dimension of the board.
+   * @return int
+   */
+  public int getDim() {
+    return boardState.length;
+  }
+
+  /**
+   * Set engine used for move validation and win detection.
+   * @param e BoardEngine
+   */
+  public void setEngine(final BoardEngine e) {
+    this.engine = e;
+    if (boardState != null) {
+      e.load(boardState, winLength);
+    }
+  }
+
+  /**
+   * Get engine used for move validation and win detection.
+   * @return BoardEngine
+   */
+  public BoardEngine getEngine() {
+    return engine;
   }
 
   /**
-   * Return game board state.
+   * Return a copy of game board state the caller may change; readers
+   * that only look at cells use view instead.
    * @return boardState
    */
   public char[][] getBoardState() {
-    int dim = boardState.length;
-    char[][] state = new char[dim][dim];
-    for (int i = 0; i < dim; i++) {
-      for (int j = 0; j < dim; j++) {
-        state[i][j] = boardState[i][j];
-      }
+    char[][] state = new char[boardState.length][];
+    for (int i = 0; i < state.length; i++) {
+      state[i] = boardState[i].clone();
     }
     return state;
   }
 
+  /**
+   * Get a read-only view of the cells, backed by this board.
+   * @return BoardView
+   */
+  public BoardView view() {
+    return view;
+  }
+
+  /**
+   * Get game board state without copying it, for encoders.
+   * @return boardState
+   */
+  char[][] state() {
+    return boardState;
+  }
+
   /**
    * Check if move is valid.
    * @param move Move
@@ -153,51 +420,80 @@ public class GameBoard {
    * @return boolean
    */
   public boolean isValid(final Move move, final Message message) {
-    String code = String.valueOf(move.getPlayer().getId());
-    code += String.valueOf(move.getMoveX());
-    code += String.valueOf(move.getMoveY());
+    int playerId = move.getPlayer().getId();
+    MoveCheck check = check(playerId, move.getMoveX(), move.getMoveY());
+    if (check.hasCode()) {
+      message.setCode(moveCode(playerId, move.getMoveX(), move.getMoveY()));
+    }
+    message.setMoveValidity(check.isValid());
+    if (!check.isValid()) {
+      message.setMessage(check.getMessage());
+    }
+    return check.isValid();
+  }
+
+  /**
+   * Check if a move is valid, without allocating.
+   * @param playerId id of the moving player
+   * @param x row
+   * @param y column
+   * @return MoveCheck
+   */
+  public MoveCheck check(final int playerId, final int x, final int y) {
     if (!isGameStarted()) {
-      message.setCode(Integer.parseInt(code));
-      message.setMoveValidity(false);
-      message.setMessage("Wait for Player 2 to join!");
-      return false;
+      return MoveCheck.NOT_STARTED;
     }
-    if (isDraw) {
-      message.setCode(Integer.parseInt(code));
-      message.setMoveValidity(false);
-      message.setMessage("Game ended.");
-      return false;
+    if (isDraw || winner != 0) {
+      return MoveCheck.GAME_ENDED;
     }
-    if (winner != 0) {
-      message.setCode(Integer.parseInt(code));
-      message.setMoveValidity(false);
-      message.setMessage("Game ended.");
-      return false;
+    if (playerId != turn) {
+      return MoveCheck.NOT_YOUR_TURN;
+    } else if (x < 0 || x >= boardState.length) {
+      return MoveCheck.INVALID_ROW;
+    } else if (y < 0 || y >= boardState.length) {
+      return MoveCheck.INVALID_COLUMN;
+    } else if (!engine.isEmpty(x, y)) {
+      return MoveCheck.TAKEN;
     }
-    if (move.getPlayer().getId() != turn) {
-      message.setCode(Integer.parseInt(code));
-      message.setMoveValidity(false);
-      message.setMessage("Not Your Turn!");
-      return false;
-    } else if (move.getMoveX() < 0 || move.getMoveX() > 2) {
-      message.setMoveValidity(false);
-      message.setMessage("Invalid Row Index!");
-      return false;
-    } else if (move.getMoveY() < 0 || move.getMoveY() > 2) {
-      message.setMoveValidity(false);
-      message.setMessage("Invalid Column Index!");
-      return false;
-    } else if (boardState[move.getMoveX()][move.getMoveY()] != '\u0000') {
-      message.setCode(Integer.parseInt(code));
-      message.setMoveValidity(false);
-      message.setMessage("Invalid Move. Try Again!");
-      return false;
-    } else {
-      message.setCode(Integer.parseInt(code));
-      message.setMoveValidity(true);
-      return true;
+    return MoveCheck.VALID;
+  }
+
+  /**
+   * Get the code of a move: the decimal digits of player id, row and
+   * column run together, so player 1 at row 10, column 0 is 1100.
+   * @param playerId player id
+   * @param x row
+   * @param y column
+   * @return code
+   * @throws NumberFormatException if the digits are no int, as for a
+   *     negative coordinate
+   */
+  public static int moveCode(final int playerId, final int x, final int y) {
+    if (playerId >= 0 && x >= 0 && y >= 0) {
+      int dx = digits(x);
+      int dy = digits(y);
+      if (digits(playerId) + dx + dy <= MAX_LONG_CODE_DIGITS) {
+        long code = ((playerId * POWERS[dx]) + x) * POWERS[dy] + y;
+        if (code <= Integer.MAX_VALUE) {
+          return (int) code;
+        }
+      }
     }
+    // Same result, or the same exception, as the digits as a string
+    return Integer.parseInt(String.valueOf(playerId) + x + y);
+  }
 
+  /**
+   * Count the decimal digits of a non-negative int.
+   * @param n int
+   * @return 1 to 10
+   */
+  private static int digits(final int n) {
+    int count = 1;
+    while (count < POWERS.length - 1 && n >= POWERS[count]) {
+      count++;
+    }
+    return count;
   }
 
   /**
@@ -206,7 +502,12 @@ public class GameBoard {
    */
   public void makeMove(final Move move) {
     char mark = move.getPlayer().getType();
+    if (boardState[move.getMoveX()][move.getMoveY()] == '\u0000') {
+      moves++;
+    }
     boardState[move.getMoveX()][move.getMoveY()] = mark;
+    engine.place(move.getMoveX(), move.getMoveY(), mark);
+    changed();
   }
 
   /**
@@ -228,35 +529,14 @@ public class GameBoard {
    * @return boolean
    */
   public boolean isOver(final Move move) {
-    int moves = 0;
-    for (int i = 0; i < boardState.length; i++) {
-      for (int j = 0; j < boardState.length; j++) {
-        if (boardState[i][j] == 'X' || boardState[i][j] == 'O') {
-          moves++;
-        }
-      }
+    if (engine.isWin(move.getMoveX(), move.getMoveY())) {
+      winner = move.getPlayer().getId();
+      changed();
+      return true;
     }
     if (moves == boardState.length * boardState.length) {
       isDraw = true;
-      return true;
-    }
-    int row = move.getMoveX();
-    int col = move.getMoveY();
-    if (boardState[0][col] ==  boardState[1][col]
-        && boardState[0][col] == boardState[2][col]) {
-      winner = move.getPlayer().getId();
-      return true;
-    } else if (boardState[row][0] == boardState[row][1]
-        && boardState[row][0] == boardState[row][2]) {
-      winner = move.getPlayer().getId();
-      return true;
-    } else if (row == col && boardState[0][0] == boardState[1][1]
-        && boardState[0][0] == boardState[2][2]) {
-      winner = move.getPlayer().getId();
-      return true;
-    } else if (row + col == 2 && boardState[0][2] == boardState[1][1]
-        && boardState[0][2] == boardState[2][0]) {
-      winner = move.getPlayer().getId();
+      changed();
       return true;
     }
     return false;
@@ -268,6 +548,7 @@ public class GameBoard {
    */
   public void setIsDraw(final boolean draw) {
     this.isDraw = draw;
+    changed();
   }
 
   /**
@@ -284,6 +565,7 @@ public class GameBoard {
    */
   public void setWinner(final int playerId) {
     this.winner = playerId;
+    changed();
   }
 
   /**
@@ -0,0 +1,118 @@
+package models;
+
+import java.util.List;
+
+/**
+ * Persistence backend of the game server.
+ * Live games are kept in memory; a store only receives their writes and
+ * hands the games back when the server restarts.
+ */
+public interface GameStore {
+
+  /**
+   * Name of the store backed by the SQLite database.
+   */
+  String SQLITE = "sqlite";
+
+  /**
+   * Name of the store backed by the memory-mapped event log.
+   */
+  String LOG = "log";
+
+  /**
+   * Create a store on its default location by name.
+   * @param name SQLITE, LOG, or null for SQLITE
+   * @return GameStore
+   */
+  static GameStore forName(final String name) {
+    if (name == null || SQLITE.equals(name)) {
+      return new SqLite();
+    } else if (LOG.equals(name)) {
+      return new EventLogStore();
+    }
+    throw new IllegalArgumentException("Unknown game store: " + name);
+  }
+
+  /**
+   * Open the store.
+   */
+  void start();
+
+  /**
+   * Remove everything stored for one game.
+   * @param game String
+   */
+  void clear(String game);
+
+  /**
+   * Store board shape and engine of a game.
+   * @param game String
+   * @param dim int
+   * @param winLength int
+   * @param engine BoardEngine name
+   */
+  void insertGame(String game, int dim, int winLength, String engine);
+
+  /**
+   * Store board shape of a game played on the array engine.
+   * @param game String
+   * @param dim int
+   * @param winLength int
+   */
+  default void insertGame(final String game, final int dim,
+      final int winLength) {
+    insertGame(game, dim, winLength, BoardEngine.ARRAY);
+  }
+
+  /**
+   * Store a player of a game.
+   * @param game String
+   * @param id int
+   * @param type char
+   */
+  void insertPlayer(String game, int id, char type);
+
+  /**
+   * Store a move of a game.
+   * @param game String
+   * @param player int
+   * @param x int
+   * @param y int
+   * @param winner int
+   * @param draw int
+   */
+  void insertBoard(String game, int player, int x, int y, int winner,
+      int draw);
+
+  /**
+   * Make writes since the last commit durable.
+   */
+  void commit();
+
+  /**
+   * Discard writes since the last commit. Stores that apply every write
+   * on its own keep them.
+   */
+  default void rollback() {
+  }
+
+  /**
+   * Get ids of all unfinished games that have a stored player; finished
+   * games are not recovered after a restart.
+   * @return game ids
+   */
+  List<String> getGames();
+
+  /**
+   * Update board of one game after reboot.
+   * @param game String
+   * @param board GameBoard
+   */
+  void inProgress(String game, GameBoard board);
+
+  /**
+   * Close the store.
+   */
+  void close();
+
+}
@@ -0,0 +1,534 @@
+package models;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Streaming UTF-8 JSON encoder for GameBoard, Player and Message, and for
+ * the snapshot and delta frames of the web socket delta protocol.
+ * GameBoard, Player and Message get the same bytes as Gson's default
+ * toJson: fields in
+ * declaration order, null fields left out, and strings escaped the way
+ * Gson's HTML-safe writer does. Encodes straight from the objects' fields
+ * into a reusable byte buffer, so encoding allocates nothing once the
+ * buffer has grown; use {@link #get()} for the current thread's codec.
+ */
+public final class JsonCodec {
+
+  /**
+   * Initial buffer size, enough for a 15x15 board.
+   */
+  private static final int INITIAL_CAPACITY = 4096;
+
+  /**
+   * Lowercase hex digits used in unicode escapes.
+   */
+  private static final byte[] HEX = "0123456789abcdef".getBytes(
+      StandardCharsets.US_ASCII);
+
+  /**
+   * Escape of every ASCII char that needs one, null if none.
+   */
+  private static final byte[][] ESCAPES = new byte[128][];
+
+  static {
+    for (int c = 0; c < 0x20; c++) {
+      ESCAPES[c] = unicodeEscape((char) c);
+    }
+    ESCAPES['"'] = ascii("\\\"");
+    ESCAPES['\\'] = ascii("\\\\");
+    ESCAPES['\t'] = ascii("\\t");
+    ESCAPES['\b'] = ascii("\\b");
+    ESCAPES['\n'] = ascii("\\n");
+    ESCAPES['\r'] = ascii("\\r");
+    ESCAPES['\f'] = ascii("\\f");
+    for (char c : new char[] {'<', '>', '&', '=', '\''}) {
+      ESCAPES[c] = unicodeEscape(c);
+    }
+  }
+
+  /**
+   * Separators Gson escapes because JavaScript treats them as newlines.
+   */
+  private static final char LINE_SEPARATOR = 0x2028;
+  private static final char PARAGRAPH_SEPARATOR = 0x2029;
+  private static final byte[] LINE_SEPARATOR_ESCAPE =
+      unicodeEscape(LINE_SEPARATOR);
+  private static final byte[] PARAGRAPH_SEPARATOR_ESCAPE =
+      unicodeEscape(PARAGRAPH_SEPARATOR);
+
+  /**
+   * Keys and fixed fragments.
+   */
+  private static final byte[] P1 = ascii("\"p1\":");
+  private static final byte[] P2 = ascii("\"p2\":");
+  private static final byte[] GAME_STARTED = ascii("\"gameStarted\":");
+  private static final byte[] TURN = ascii("\"turn\":");
+  private static final byte[] BOARD_STATE = ascii("\"boardState\":");
+  private static final byte[] WINNER = ascii("\"winner\":");
+  private static final byte[] IS_DRAW = ascii("\"isDraw\":");
+  private static final byte[] TYPE = ascii("{\"type\":");
+  private static final byte[] ID = ascii(",\"id\":");
+  private static final byte[] MOVE_VALIDITY = ascii("{\"moveValidity\":");
+  private static final byte[] CODE = ascii(",\"code\":");
+  private static final byte[] MESSAGE = ascii(",\"message\":");
+  private static final byte[] SEQ = ascii("{\"seq\":");
+  private static final byte[] BOARD = ascii(",\"board\":");
+  private static final byte[] X = ascii(",\"x\":");
+  private static final byte[] Y = ascii(",\"y\":");
+  private static final byte[] MARK = ascii(",\"mark\":");
+  private static final byte[] TRUE = ascii("true");
+  private static final byte[] FALSE = ascii("false");
+  private static final byte[] NULL = ascii("null");
+
+  /**
+   * Codec of each thread.
+   */
+  private static final ThreadCache<JsonCodec> CODECS =
+      new ThreadCache<>(JsonCodec::new);
+
+  /**
+   * Encoded bytes.
+   */
+  private byte[] buf = new byte[INITIAL_CAPACITY];
+
+  /**
+   * Number of encoded bytes.
+   */
+  private int length;
+
+  /**
+   * Encoding as a string, null until toString is called, or the shared
+   * text of a pre-encoded reply.
+   */
+  private String text;
+
+  /**
+   * Get the codec of the current thread, holding its last encoding.
+   * @return JsonCodec
+   */
+  public static JsonCodec get() {
+    return CODECS.get();
+  }
+
+  /**
+   * Encode a game board, replacing the previous encoding.
+   * @param board GameBoard
+   * @return this
+   */
+  public JsonCodec encode(final GameBoard board) {
+    clear();
+    board(board);
+    return this;
+  }
+
+  /**
+   * Encode the full state of a game as a delta protocol snapshot,
+   * {"seq":n,"board":{...}}.
+   * @param seq sequence number of the last update the board includes
+   * @param board GameBoard
+   * @return this
+   */
+  public JsonCodec encodeSnapshot(final long seq, final GameBoard board) {
+    clear();
+    put(SEQ);
+    number(seq);
+    put(BOARD);
+    board(board);
+    put((byte) '}');
+    return this;
+  }
+
+  /**
+   * Encode an applied move as a delta protocol update,
+   * {"seq":n,"x":row,"y":column,"mark":"X"} followed by turn, winner and
+   * isDraw if the move changed them.
+   * @param seq sequence number of this update
+   * @param board GameBoard after the move
+   * @param move applied Move
+   * @param previousTurn turn before the move
+   * @return this
+   */
+  public JsonCodec encodeDelta(final long seq, final GameBoard board,
+      final Move move, final int previousTurn) {
+    clear();
+    put(SEQ);
+    number(seq);
+    put(X);
+    number(move.getMoveX());
+    put(Y);
+    number(move.getMoveY());
+    put(MARK);
+    string(move.getPlayer().getType());
+    if (board.getTurn() != previousTurn) {
+      put((byte) ',');
+      put(TURN);
+      number(board.getTurn());
+    }
+    if (board.getWinner() != 0) {
+      put((byte) ',');
+      put(WINNER);
+      number(board.getWinner());
+    }
+    if (board.getIsDraw()) {
+      put((byte) ',');
+      put(IS_DRAW);
+      bool(true);
+    }
+    put((byte) '}');
+    return this;
+  }
+
+  /**
+   * Append a game board object.
+   * @param board GameBoard
+   */
+  private void board(final GameBoard board) {
+    byte sep = '{';
+    if (board.getP1() != null) {
+      put(sep);
+      put(P1);
+      player(board.getP1());
+      sep = ',';
+    }
+    if (board.getP2() != null) {
+      put(sep);
+      put(P2);
+      player(board.getP2());
+      sep = ',';
+    }
+    put(sep);
+    put(GAME_STARTED);
+    bool(board.isGameStarted());
+    put((byte) ',');
+    put(TURN);
+    number(board.getTurn());
+    char[][] state = board.state();
+    if (state != null) {
+      put((byte) ',');
+      put(BOARD_STATE);
+      cells(state);
+    }
+    put((byte) ',');
+    put(WINNER);
+    number(board.getWinner());
+    put((byte) ',');
+    put(IS_DRAW);
+    bool(board.getIsDraw());
+    put((byte) '}');
+  }
+
+  /**
+   * Encode a message, replacing the previous encoding.
+   * @param message Message
+   * @return this
+   */
+  public JsonCodec encode(final Message message) {
+    return reply(message.getMoveValidity(), message.getCode(),
+        message.getMessage());
+  }
+
+  /**
+   * Encode the reply to a checked move, the Message isValid would fill
+   * in, replacing the previous encoding. Most rejections are copied
+   * from RejectionReplies instead of encoded, and their toString is the
+   * shared text of the reply.
+   * @param check MoveCheck
+   * @param playerId id of the moving player
+   * @param x row
+   * @param y column
+   * @return this
+   */
+  public JsonCodec encode(final MoveCheck check, final int playerId,
+      final int x, final int y) {
+    byte[] rejection = RejectionReplies.get(check, playerId, x, y);
+    if (rejection != null) {
+      clear();
+      put(rejection);
+      text = RejectionReplies.text(check, playerId, x, y);
+      return this;
+    }
+    int code = check.hasCode() ? GameBoard.moveCode(playerId, x, y) : 0;
+    return reply(check.isValid(), code, check.getMessage());
+  }
+
+  /**
+   * Encode a Message from its fields, replacing the previous encoding.
+   * @param valid moveValidity
+   * @param code move code
+   * @param message text, null to leave out
+   * @return this
+   */
+  private JsonCodec reply(final boolean valid, final int code,
+      final String message) {
+    clear();
+    put(MOVE_VALIDITY);
+    bool(valid);
+    put(CODE);
+    number(code);
+    if (message != null) {
+      put(MESSAGE);
+      string(message);
+    }
+    put((byte) '}');
+    return this;
+  }
+
+  /**
+   * Encode a player, replacing the previous encoding.
+   * @param player Player
+   * @return this
+   */
+  public JsonCodec encode(final Player player) {
+    clear();
+    player(player);
+    return this;
+  }
+
+  /**
+   * Get number of encoded bytes.
+   * @return int
+   */
+  public int length() {
+    return length;
+  }
+
+  /**
+   * Get the buffer holding the encoding in its first length() bytes.
+   * Only valid until the next encode on this codec.
+   * @return byte[]
+   */
+  public byte[] array() {
+    return buf;
+  }
+
+  /**
+   * Write the encoding to a stream.
+   * @param out OutputStream
+   * @throws IOException on write error
+   */
+  public void writeTo(final OutputStream out) throws IOException {
+    out.write(buf, 0, length);
+  }
+
+  /**
+   * Get the encoding as a string.
+   * @return JSON text
+   */
+  @Override
+  public String toString() {
+    if (text == null) {
+      text = new String(buf, 0, length, StandardCharsets.UTF_8);
+    }
+    return text;
+  }
+
+  /**
+   * Drop the previous encoding.
+   */
+  private void clear() {
+    length = 0;
+    text = null;
+  }
+
+  /**
+   * Append a player object.
+   * @param player Player
+   */
+  private void player(final Player player) {
+    put(TYPE);
+    string(player.getType());
+    put(ID);
+    number(player.getId());
+    put((byte) '}');
+  }
+
+  /**
+   * Append board cells as an array of one-char strings.
+   * @param state char[][]
+   */
+  private void cells(final char[][] state) {
+    put((byte) '[');
+    for (int i = 0; i < state.length; i++) {
+      if (i > 0) {
+        put((byte) ',');
+      }
+      char[] row = state[i];
+      if (row == null) {
+        put(NULL);
+        continue;
+      }
+      put((byte) '[');
+      for (int j = 0; j < row.length; j++) {
+        if (j > 0) {
+          put((byte) ',');
+        }
+        string(row[j]);
+      }
+      put((byte) ']');
+    }
+    put((byte) ']');
+  }
+
+  /**
+   * Append a one-char string.
+   * @param c char
+   */
+  private void string(final char c) {
+    put((byte) '"');
+    if (Character.isSurrogate(c)) {
+      // Unpaired, like String.getBytes
+      put((byte) '?');
+    } else {
+      character(c);
+    }
+    put((byte) '"');
+  }
+
+  /**
+   * Append a string.
+   * @param s String
+   */
+  private void string(final String s) {
+    put((byte) '"');
+    int n = s.length();
+    for (int i = 0; i < n; i++) {
+      char c = s.charAt(i);
+      if (Character.isHighSurrogate(c) && i + 1 < n
+          && Character.isLowSurrogate(s.charAt(i + 1))) {
+        codePoint(Character.toCodePoint(c, s.charAt(++i)));
+      } else if (Character.isSurrogate(c)) {
+        put((byte) '?');
+      } else {
+        character(c);
+      }
+    }
+    put((byte) '"');
+  }
+
+  /**
+   * Append a char that is not a surrogate, escaped if needed.
+   * @param c char
+   */
+  private void character(final char c) {
+    if (c < 0x80) {
+      byte[] escape = ESCAPES[c];
+      if (escape == null) {
+        put((byte) c);
+      } else {
+        put(escape);
+      }
+    } else if (c == LINE_SEPARATOR) {
+      put(LINE_SEPARATOR_ESCAPE);
+    } else if (c == PARAGRAPH_SEPARATOR) {
+      put(PARAGRAPH_SEPARATOR_ESCAPE);
+    } else {
+      codePoint(c);
+    }
+  }
+
+  /**
+   * Append a non-ASCII code point as UTF-8.
+   * @param cp code point
+   */
+  private void codePoint(final int cp) {
+    ensure(4);
+    if (cp < 0x800) {
+      buf[length++] = (byte) (0xc0 | cp >> 6);
+    } else if (cp < 0x10000) {
+      buf[length++] = (byte) (0xe0 | cp >> 12);
+      buf[length++] = (byte) (0x80 | cp >> 6 & 0x3f);
+    } else {
+      buf[length++] = (byte) (0xf0 | cp >> 18);
+      buf[length++] = (byte) (0x80 | cp >> 12 & 0x3f);
+      buf[length++] = (byte) (0x80 | cp >> 6 & 0x3f);
+    }
+    buf[length++] = (byte) (0x80 | cp & 0x3f);
+  }
+
+  /**
+   * Append a number in decimal.
+   * @param value long
+   */
+  private void number(final long value) {
+    if (value == Long.MIN_VALUE) {
+      put(ascii(Long.toString(value)));
+      return;
+    }
+    ensure(20);
+    long v = value;
+    if (v < 0) {
+      buf[length++] = '-';
+      v = -v;
+    }
+    int digits = 1;
+    for (long p = v; p >= 10; p /= 10) {
+      digits++;
+    }
+    int end = length + digits;
+    for (int i = end - 1; i >= length; i--) {
+      buf[i] = (byte) ('0' + v % 10);
+      v /= 10;
+    }
+    length = end;
+  }
+
+  /**
+   * Append a boolean.
+   * @param value boolean
+   */
+  private void bool(final boolean value) {
+    put(value ? TRUE : FALSE);
+  }
+
+  /**
+   * Append one byte.
+   * @param b byte
+   */
+  private void put(final byte b) {
+    ensure(1);
+    buf[length++] = b;
+  }
+
+  /**
+   * Append bytes.
+   * @param bytes byte[]
+   */
+  private void put(final byte[] bytes) {
+    ensure(bytes.length);
+    System.arraycopy(bytes, 0, buf, length, bytes.length);
+    length += bytes.length;
+  }
+
+  /**
+   * Grow the buffer to fit more bytes.
+   * @param more number of bytes about to be appended
+   */
+  private void ensure(final int more) {
+    if (length + more > buf.length) {
+      buf = Arrays.copyOf(buf, Math.max(buf.length * 2, length + more));
+    }
+  }
+
+  /**
+   * Encode ASCII text.
+   * @param s String
+   * @return byte[]
+   */
+  private static byte[] ascii(final String s) {
+    return s.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Build the unicode escape of a char, backslash u and four hex digits.
+   * @param c char
+   * @return byte[]
+   */
+  private static byte[] unicodeEscape(final char c) {
+    return new byte[] {'\\', 'u', HEX[c >> 12 & 0xf], HEX[c >> 8 & 0xf],
+        HEX[c >> 4 & 0xf], HEX[c & 0xf]};
+  }
+
+}
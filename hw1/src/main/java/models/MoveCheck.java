@@ -0,0 +1,89 @@
+package models;
+
+/**
+ * Outcome of checking a move, shared by all moves, so checking one
+ * allocates nothing. Rejections carry their reply message.
+ */
+public enum MoveCheck {
+
+  /**
+   * Move can be made.
+   */
+  VALID(null, true),
+
+  /**
+   * Player 2 has not joined yet.
+   */
+  NOT_STARTED("Wait for Player 2 to join!", true),
+
+  /**
+   * Game was won or drawn.
+   */
+  GAME_ENDED("Game ended.", true),
+
+  /**
+   * Other player's turn.
+   */
+  NOT_YOUR_TURN("Not Your Turn!", true),
+
+  /**
+   * Row outside the board.
+   */
+  INVALID_ROW("Invalid Row Index!", false),
+
+  /**
+   * Column outside the board.
+   */
+  INVALID_COLUMN("Invalid Column Index!", false),
+
+  /**
+   * Cell already taken.
+   */
+  TAKEN("Invalid Move. Try Again!", true);
+
+  /**
+   * Reply message, null if valid.
+   */
+  private final String message;
+
+  /**
+   * Whether the reply carries the move code.
+   */
+  private final boolean coded;
+
+  /**
+   * Create a check outcome.
+   * @param text reply message, null if valid
+   * @param hasCode whether the reply carries the move code
+   */
+  MoveCheck(final String text, final boolean hasCode) {
+    this.message = text;
+    this.coded = hasCode;
+  }
+
+  /**
+   * Check if the move can be made.
+   * @return boolean
+   */
+  public boolean isValid() {
+    return this == VALID;
+  }
+
+  /**
+   * Get reply message.
+   * @return message, null if valid
+   */
+  public String getMessage() {
+    return message;
+  }
+
+  /**
+   * Check if the reply carries the move code; replies about coordinates
+   * off the board leave it 0.
+   * @return boolean
+   */
+  public boolean hasCode() {
+    return coded;
+  }
+
+}
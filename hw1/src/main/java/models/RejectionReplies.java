@@ -0,0 +1,176 @@
+package models;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Message JSON of every rejected move, encoded once, as bytes for HTTP
+ * replies and as text for web socket frames. Rejections about
+ * coordinates off the board carry no code and have one reply each; the
+ * others have one per player and cell of the largest board, indexed by
+ * the MoveCheck and move. Under load most moves are rejected, and
+ * replying to one is then a copy of a few dozen bytes, or none at all.
+ */
+final class RejectionReplies {
+
+  /**
+   * Largest board dimension; the table covers its cells.
+   */
+  private static final int DIM = GameBoard.MAX_DIM;
+
+  /**
+   * Number of players.
+   */
+  private static final int PLAYERS = 2;
+
+  /**
+   * Replies carrying a code by MoveCheck ordinal, then by player and
+   * cell; null for VALID and uncoded rejections.
+   */
+  private static final byte[][][] CODED =
+      new byte[MoveCheck.values().length][][];
+
+  /**
+   * Replies without a code by MoveCheck ordinal.
+   */
+  private static final byte[][] UNCODED =
+      new byte[MoveCheck.values().length][];
+
+  /**
+   * Text of the replies in CODED.
+   */
+  private static final String[][] CODED_TEXT =
+      new String[MoveCheck.values().length][];
+
+  /**
+   * Text of the replies in UNCODED.
+   */
+  private static final String[] UNCODED_TEXT =
+      new String[MoveCheck.values().length];
+
+  static {
+    JsonCodec codec = new JsonCodec();
+    for (MoveCheck check : MoveCheck.values()) {
+      if (check.isValid()) {
+        continue;
+      }
+      if (!check.hasCode()) {
+        UNCODED[check.ordinal()] = reply(codec, check, 0);
+        UNCODED_TEXT[check.ordinal()] = text(UNCODED[check.ordinal()]);
+        continue;
+      }
+      byte[][] replies = new byte[PLAYERS * DIM * DIM][];
+      String[] texts = new String[replies.length];
+      for (int p = 1; p <= PLAYERS; p++) {
+        for (int x = 0; x < DIM; x++) {
+          for (int y = 0; y < DIM; y++) {
+            int i = index(p, x, y);
+            replies[i] = reply(codec, check, GameBoard.moveCode(p, x, y));
+            texts[i] = text(replies[i]);
+          }
+        }
+      }
+      CODED[check.ordinal()] = replies;
+      CODED_TEXT[check.ordinal()] = texts;
+    }
+  }
+
+  /**
+   * Private constructor that prevents utility class instantiation.
+   */
+  private RejectionReplies() {
+  }
+
+  /**
+   * Get the encoded reply to a rejected move.
+   * @param check MoveCheck
+   * @param playerId id of the moving player
+   * @param x row
+   * @param y column
+   * @return Message JSON, not to be changed, or null if the move was
+   *     valid or lies outside the table
+   */
+  static byte[] get(final MoveCheck check, final int playerId,
+      final int x, final int y) {
+    return lookup(CODED, UNCODED, check, playerId, x, y);
+  }
+
+  /**
+   * Get the text of the reply to a rejected move.
+   * @param check MoveCheck
+   * @param playerId id of the moving player
+   * @param x row
+   * @param y column
+   * @return Message JSON, or null if the move was valid or lies outside
+   *     the table
+   */
+  static String text(final MoveCheck check, final int playerId,
+      final int x, final int y) {
+    return lookup(CODED_TEXT, UNCODED_TEXT, check, playerId, x, y);
+  }
+
+  /**
+   * Look up the reply to a rejected move in a pair of tables.
+   * @param coded replies carrying a code
+   * @param uncoded replies without a code
+   * @param check MoveCheck
+   * @param playerId id of the moving player
+   * @param x row
+   * @param y column
+   * @param <T> reply type
+   * @return reply, or null if the move was valid or lies outside the
+   *     table
+   */
+  private static <T> T lookup(final T[][] coded, final T[] uncoded,
+      final MoveCheck check, final int playerId, final int x, final int y) {
+    if (check.isValid()) {
+      return null;
+    }
+    if (!check.hasCode()) {
+      return uncoded[check.ordinal()];
+    }
+    if (playerId < 1 || playerId > PLAYERS || x < 0 || x >= DIM || y < 0
+        || y >= DIM) {
+      return null;
+    }
+    return coded[check.ordinal()][index(playerId, x, y)];
+  }
+
+  /**
+   * Get the table index of a move.
+   * @param playerId 1 or 2
+   * @param x row below DIM
+   * @param y column below DIM
+   * @return int
+   */
+  private static int index(final int playerId, final int x, final int y) {
+    return ((playerId - 1) * DIM + x) * DIM + y;
+  }
+
+  /**
+   * Encode a rejection the way isValid fills in its Message.
+   * @param codec JsonCodec to encode with
+   * @param check rejecting MoveCheck
+   * @param code move code, 0 if none
+   * @return Message JSON
+   */
+  private static byte[] reply(final JsonCodec codec, final MoveCheck check,
+      final int code) {
+    Message message = new Message();
+    message.setMoveValidity(false);
+    message.setCode(code);
+    message.setMessage(check.getMessage());
+    codec.encode(message);
+    return Arrays.copyOf(codec.array(), codec.length());
+  }
+
+  /**
+   * Decode an encoded reply.
+   * @param reply Message JSON
+   * @return String
+   */
+  private static String text(final byte[] reply) {
+    return new String(reply, StandardCharsets.UTF_8);
+  }
+
+}
@@ -2,31 +2,157 @@ package models;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import org.sqlite.SQLiteConfig;
 
-public class SqLite {
+public class SqLite implements GameStore {
 
   /**
-   * Connection to database.
+   * Database file used by the game server.
    */
-  private Connection conn = null;
+  public static final String DEFAULT_PATH = "tic-tac-toe.db";
+
+  /**
+   * Game id used by the single-game methods.
+   */
+  public static final String DEFAULT_GAME = "default";
 
   /**
-   * database statement for execution.
+   * Number of read-only connections by default.
    */
-  private Statement stmt = null;
+  public static final int DEFAULT_READERS = 4;
 
   /**
-   * Dimension Constant for boardState.
+   * Dimension of boards stored without a GAME row.
    */
   private static final int DIM = 3;
 
+  /**
+   * Milliseconds a connection waits on a locked database.
+   */
+  private static final int BUSY_TIMEOUT_MILLIS = 5000;
+
+  /**
+   * Page cache per connection in KiB (negative means KiB to SQLite).
+   */
+  private static final int CACHE_SIZE_KIB = -8192;
+
+  /**
+   * Queries run through the statement cache.
+   */
+  private static final String DELETE_BOARDS = "DELETE FROM GAMEBOARD";
+  private static final String DELETE_PLAYERS = "DELETE FROM PLAYER";
+  private static final String DELETE_GAMES = "DELETE FROM GAME";
+  private static final String DELETE_BOARD =
+      "DELETE FROM GAMEBOARD WHERE GAME = ?";
+  private static final String DELETE_PLAYER =
+      "DELETE FROM PLAYER WHERE GAME = ?";
+  private static final String DELETE_GAME = "DELETE FROM GAME WHERE ID = ?";
+  private static final String INSERT_BOARD =
+      "INSERT INTO GAMEBOARD (GAME,PLAYER,ROW,COLUMN,WINNER,DRAW) "
+      + "VALUES (?,?,?,?,?,?)";
+  private static final String INSERT_PLAYER =
+      "INSERT INTO PLAYER (GAME,ID,TYPE) VALUES (?,?,?)";
+  private static final String INSERT_GAME =
+      "INSERT OR REPLACE INTO GAME (ID,DIM,WIN_LENGTH,ENGINE) "
+      + "VALUES (?,?,?,?)";
+  private static final String COUNT_BOARD = "SELECT COUNT(*) FROM GAMEBOARD "
+      + "WHERE GAME = ? AND PLAYER = ? AND ROW = ? AND COLUMN = ?";
+  private static final String SELECT_TYPE =
+      "SELECT TYPE FROM PLAYER WHERE GAME = ? AND ID = ?";
+  private static final String SELECT_SHAPE =
+      "SELECT DIM, WIN_LENGTH FROM GAME WHERE ID = ?";
+  private static final String SELECT_ENGINE =
+      "SELECT ENGINE FROM GAME WHERE ID = ?";
+  private static final String SELECT_GAMES =
+      "SELECT DISTINCT GAME FROM PLAYER WHERE GAME NOT IN "
+      + "(SELECT GAME FROM GAMEBOARD WHERE WINNER IN (1, 2) OR DRAW = 1)";
+  private static final String SELECT_MOVES =
+      "SELECT PLAYER, ROW, COLUMN, WINNER, DRAW FROM GAMEBOARD WHERE GAME = ?";
+
+  /**
+   * Path of the database file.
+   */
+  private final String path;
+
+  /**
+   * Number of read-only connections.
+   */
+  private final int readerCount;
+
+  /**
+   * Connection to database, the only one that writes.
+   */
+  private Connection conn = null;
+
+  /**
+   * Prepared statements of the writer connection.
+   */
+  private StatementCache statements = null;
+
+  /**
+   * Idle read-only connections with their prepared statements.
+   */
+  private BlockingQueue<StatementCache> readers = null;
+
+  /**
+   * Create database on the default file.
+   */
+  public SqLite() {
+    this(DEFAULT_PATH);
+  }
+
+  /**
+   * Create database on a given file.
+   * @param file path of the database file
+   */
+  public SqLite(final String file) {
+    this(file, DEFAULT_READERS);
+  }
+
+  /**
+   * Create database on a given file with a given reader pool size.
+   * @param file path of the database file
+   * @param readerConnections number of read-only connections, at least 1
+   */
+  public SqLite(final String file, final int readerConnections) {
+    if (readerConnections < 1) {
+      throw new IllegalArgumentException("Need at least one reader");
+    }
+    this.path = file;
+    this.readerCount = readerConnections;
+  }
+
+  /**
+   * Build connection settings shared by writer and readers.
+   * WAL lets readers run next to the writer; synchronous=NORMAL only
+   * syncs at checkpoints, which WAL keeps safe against process crashes.
+   * @param readOnly boolean
+   * @return SQLiteConfig
+   */
+  private static SQLiteConfig config(final boolean readOnly) {
+    SQLiteConfig config = new SQLiteConfig();
+    config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+    config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+    config.setBusyTimeout(BUSY_TIMEOUT_MILLIS);
+    config.setTempStore(SQLiteConfig.TempStore.MEMORY);
+    config.setCacheSize(CACHE_SIZE_KIB);
+    config.setReadOnly(readOnly);
+    return config;
+  }
+
   /**
    * Start database.
    */
-  public void start() {
+  @Override
+  public synchronized void start() {
     try {
       Class.forName("org.sqlite.JDBC");
     } catch (ClassNotFoundException e) {
@@ -34,43 +160,113 @@ public class SqLite {
       e.printStackTrace();
     }
     try {
-      conn = DriverManager.getConnection("jdbc:sqlite:tic-tac-toe.db");
+      conn = DriverManager.getConnection("jdbc:sqlite:" + path,
+          config(false).toProperties());
       conn.setAutoCommit(false);
-      stmt = conn.createStatement();
-      String sql = "CREATE TABLE IF NOT EXISTS GAMEBOARD "
-                     + " (PLAYER         INT NOT NULL, "
-                     + " ROW             INT NOT NULL, "
-                     + " COLUMN          INT NOT NULL, "
-                     + " WINNER          INT, "
-                     + " DRAW            INT, "
-                     + " CONSTRAINT POSITION PRIMARY KEY (ROW, COLUMN) ) ";
-      stmt.executeUpdate(sql);
-      sql = "CREATE TABLE IF NOT EXISTS PLAYER "
-              + " (ID         INT PRIMARY KEY NOT NULL, "
-              + " TYPE        CHAR            NOT NULL) ";
-      stmt.executeUpdate(sql);
+      statements = new StatementCache(conn);
+      Statement stmt = conn.createStatement();
+      try {
+        migrateLegacySchema(stmt);
+        String sql = "CREATE TABLE IF NOT EXISTS GAMEBOARD "
+                       + " (GAME           TEXT NOT NULL, "
+                       + " PLAYER          INT NOT NULL, "
+                       + " ROW             INT NOT NULL, "
+                       + " COLUMN          INT NOT NULL, "
+                       + " WINNER          INT, "
+                       + " DRAW            INT, "
+                       + " CONSTRAINT POSITION "
+                       + " PRIMARY KEY (GAME, ROW, COLUMN) ) ";
+        stmt.executeUpdate(sql);
+        sql = "CREATE TABLE IF NOT EXISTS PLAYER "
+                + " (GAME       TEXT            NOT NULL, "
+                + " ID          INT             NOT NULL, "
+                + " TYPE        CHAR            NOT NULL, "
+                + " PRIMARY KEY (GAME, ID) ) ";
+        stmt.executeUpdate(sql);
+        sql = "CREATE TABLE IF NOT EXISTS GAME "
+                + " (ID         TEXT PRIMARY KEY NOT NULL, "
+                + " DIM         INT             NOT NULL, "
+                + " WIN_LENGTH  INT             NOT NULL, "
+                + " ENGINE      TEXT            NOT NULL) ";
+        stmt.executeUpdate(sql);
+      } finally {
+        stmt.close();
+      }
+      // Readers only see committed tables
+      conn.commit();
+      readers = new ArrayBlockingQueue<>(readerCount);
+      for (int i = 0; i < readerCount; i++) {
+        Connection reader = DriverManager.getConnection("jdbc:sqlite:" + path,
+            config(true).toProperties());
+        readers.add(new StatementCache(reader));
+      }
     } catch (SQLException e) {
       // TODO Auto-generated catch block
       e.printStackTrace();
     }
   }
 
+  /**
+   * Drop tables written before games had ids.
+   * They only ever held crash-recovery data for a single game.
+   * @param stmt Statement
+   * @throws SQLException on database error
+   */
+  private void migrateLegacySchema(final Statement stmt)
+      throws SQLException {
+    boolean legacy = false;
+    ResultSet rs = stmt.executeQuery("PRAGMA table_info(GAMEBOARD)");
+    try {
+      boolean exists = false;
+      boolean hasGame = false;
+      while (rs.next()) {
+        exists = true;
+        if ("GAME".equalsIgnoreCase(rs.getString("name"))) {
+          hasGame = true;
+        }
+      }
+      legacy = exists && !hasGame;
+    } finally {
+      rs.close();
+    }
+    if (legacy) {
+      stmt.executeUpdate("DROP TABLE GAMEBOARD");
+      stmt.executeUpdate("DROP TABLE IF EXISTS PLAYER");
+    }
+  }
+
   /**
    * clean tables in database.
    */
-  public void clear() {
+  public synchronized void clear() {
     try {
-      conn.setAutoCommit(false);
-      String sql = "DELETE FROM GAMEBOARD;";
-      stmt.executeUpdate(sql);
-      sql = "DELETE FROM PLAYER;";
-      stmt.executeUpdate(sql);
+      statements.prepare(DELETE_BOARDS).executeUpdate();
+      statements.prepare(DELETE_PLAYERS).executeUpdate();
+      statements.prepare(DELETE_GAMES).executeUpdate();
     } catch (SQLException e) {
       // TODO Auto-generated catch block
       e.printStackTrace();
     }
   }
 
+  /**
+   * clean tables of one game.
+   * @param game String
+   */
+  @Override
+  public synchronized void clear(final String game) {
+    try {
+      for (String sql : new String[] {DELETE_BOARD, DELETE_PLAYER,
+          DELETE_GAME}) {
+        PreparedStatement ps = statements.prepare(sql);
+        ps.setString(1, game);
+        ps.executeUpdate();
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("Could not clear game", e);
+    }
+  }
+
   /**
    * Insert moves to gameboard.
    * @param player int
@@ -81,15 +277,32 @@ public class SqLite {
    */
   public void insertBoard(final int player, final int x, final int y,
              final int winner, final int draw) {
+    insertBoard(DEFAULT_GAME, player, x, y, winner, draw);
+  }
+
+  /**
+   * Insert moves to gameboard of one game.
+   * @param game String
+   * @param player int
+   * @param x int
+   * @param y int
+   * @param winner int
+   * @param draw int
+   */
+  @Override
+  public synchronized void insertBoard(final String game, final int player,
+             final int x, final int y, final int winner, final int draw) {
     try {
-      conn.setAutoCommit(false);
-      String sql = "INSERT INTO GAMEBOARD (PLAYER,ROW,COLUMN,WINNER,DRAW) "
-                     + "VALUES (" + player + "," + x + "," + y
-                     + "," + winner + "," + draw + ");";
-      stmt.executeUpdate(sql);
+      PreparedStatement ps = statements.prepare(INSERT_BOARD);
+      ps.setString(1, game);
+      ps.setInt(2, player);
+      ps.setInt(3, x);
+      ps.setInt(4, y);
+      ps.setInt(5, winner);
+      ps.setInt(6, draw);
+      ps.executeUpdate();
     } catch (SQLException e) {
-      // TODO Auto-generated catch block
-      e.printStackTrace();
+      throw new IllegalStateException("Could not store move", e);
     }
   }
 
@@ -99,26 +312,180 @@ public class SqLite {
    * @param type char
    */
   public void insertPlayer(final int id, final char type) {
+    insertPlayer(DEFAULT_GAME, id, type);
+  }
+
+  /**
+   * Insert Player info of one game to Player table.
+   * @param game String
+   * @param id int
+   * @param type char
+   */
+  @Override
+  public synchronized void insertPlayer(final String game, final int id,
+      final char type) {
     try {
-      conn.setAutoCommit(false);
-      String sql = "INSERT INTO PLAYER (ID,TYPE) "
-                   + "VALUES (" + id + "," + "'" + type + "'" + ");";
-      stmt.executeUpdate(sql);
+      PreparedStatement ps = statements.prepare(INSERT_PLAYER);
+      ps.setString(1, game);
+      ps.setInt(2, id);
+      ps.setString(3, String.valueOf(type));
+      ps.executeUpdate();
     } catch (SQLException e) {
-      // TODO Auto-generated catch block
-      e.printStackTrace();
+      throw new IllegalStateException("Could not store player", e);
+    }
+  }
+
+  /**
+   * Insert board shape and engine of a game to Game table.
+   * @param game String
+   * @param dim int
+   * @param winLength int
+   * @param engine BoardEngine name
+   */
+  @Override
+  public synchronized void insertGame(final String game, final int dim,
+      final int winLength, final String engine) {
+    try {
+      PreparedStatement ps = statements.prepare(INSERT_GAME);
+      ps.setString(1, game);
+      ps.setInt(2, dim);
+      ps.setInt(3, winLength);
+      ps.setString(4, engine);
+      ps.executeUpdate();
+    } catch (SQLException e) {
+      throw new IllegalStateException("Could not store game", e);
+    }
+  }
+
+  /**
+   * Get board shape of a game.
+   * @param game String
+   * @return dimension and win length, classic 3x3 if not stored
+   */
+  public int[] getShape(final String game) {
+    StatementCache reader = borrow();
+    try {
+      return getShape(reader, game);
+    } finally {
+      release(reader);
     }
   }
 
+  /**
+   * Get board shape of a game on a reader connection.
+   * @param reader StatementCache
+   * @param game String
+   * @return dimension and win length, classic 3x3 if not stored
+   */
+  private int[] getShape(final StatementCache reader, final String game) {
+    int[] shape = {DIM, GameBoard.DEFAULT_WIN_LENGTH};
+    try {
+      PreparedStatement ps = reader.prepare(SELECT_SHAPE);
+      ps.setString(1, game);
+      ResultSet rs = ps.executeQuery();
+      try {
+        while (rs.next()) {
+          shape[0] = rs.getInt("DIM");
+          shape[1] = rs.getInt("WIN_LENGTH");
+        }
+      } finally {
+        rs.close();
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("Could not read board shape", e);
+    }
+    return shape;
+  }
+
+  /**
+   * Get board engine of a game.
+   * @param game String
+   * @return BoardEngine name, null if not stored
+   */
+  public String getEngine(final String game) {
+    StatementCache reader = borrow();
+    try {
+      return getEngine(reader, game);
+    } finally {
+      release(reader);
+    }
+  }
+
+  /**
+   * Get board engine of a game on a reader connection.
+   * @param reader StatementCache
+   * @param game String
+   * @return BoardEngine name, null if not stored
+   */
+  private String getEngine(final StatementCache reader, final String game) {
+    String engine = null;
+    try {
+      PreparedStatement ps = reader.prepare(SELECT_ENGINE);
+      ps.setString(1, game);
+      ResultSet rs = ps.executeQuery();
+      try {
+        while (rs.next()) {
+          engine = rs.getString("ENGINE");
+        }
+      } finally {
+        rs.close();
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("Could not read engine", e);
+    }
+    return engine;
+  }
+
+  /**
+   * Take an idle reader connection, waiting for one if all are busy.
+   * @return StatementCache of the reader
+   */
+  private StatementCache borrow() {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return readers.take();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Return a reader connection to the pool.
+   * @param reader StatementCache
+   */
+  private void release(final StatementCache reader) {
+    readers.add(reader);
+  }
+
   /**
    * Commit last sql execution.
    */
-  public void commit() {
+  @Override
+  public synchronized void commit() {
     try {
       conn.commit();
     } catch (SQLException e) {
-      // TODO Auto-generated catch block
-      e.printStackTrace();
+      throw new IllegalStateException("Commit failed", e);
+    }
+  }
+
+  /**
+   * Discard writes since the last commit.
+   */
+  @Override
+  public synchronized void rollback() {
+    try {
+      conn.rollback();
+    } catch (SQLException e) {
+      throw new IllegalStateException("Rollback failed", e);
     }
   }
 
@@ -130,16 +497,31 @@ public class SqLite {
    * @return count int
    */
   public int getBoard(final int player, final int row, final int column) {
+    return getBoard(DEFAULT_GAME, player, row, column);
+  }
+
+  /**
+   * Get number of rows of one game matched given row, column and player.
+   * @param game String
+   * @param player int
+   * @param row int
+   * @param column int
+   * @return count int
+   */
+  public int getBoard(final String game, final int player,
+      final int row, final int column) {
     int count = 0;
+    StatementCache reader = borrow();
     try {
-      ResultSet rs;
-      rs = stmt.executeQuery("SELECT * FROM GAMEBOARD "
-              + "WHERE PLAYER= " + player + " AND "
-              + "ROW= " + row + " AND "
-              + "Column= " + column);
+      PreparedStatement ps = reader.prepare(COUNT_BOARD);
+      ps.setString(1, game);
+      ps.setInt(2, player);
+      ps.setInt(3, row);
+      ps.setInt(4, column);
+      ResultSet rs = ps.executeQuery();
       try {
-        while (rs.next()) {
-          count += 1;
+        if (rs.next()) {
+          count = rs.getInt(1);
         }
       } finally {
         rs.close();
@@ -147,6 +529,8 @@ public class SqLite {
     } catch (SQLException e) {
       // TODO Auto-generated catch block
       e.printStackTrace();
+    } finally {
+      release(reader);
     }
     return count;
   }
@@ -157,11 +541,39 @@ public class SqLite {
    * @return type char
    */
   public char getType(final int id) {
+    return getType(DEFAULT_GAME, id);
+  }
+
+  /**
+   * Get player type in one game.
+   * @param game String
+   * @param id int
+   * @return type char
+   */
+  public char getType(final String game, final int id) {
+    StatementCache reader = borrow();
+    try {
+      return getType(reader, game, id);
+    } finally {
+      release(reader);
+    }
+  }
+
+  /**
+   * Get player type in one game on a reader connection.
+   * @param reader StatementCache
+   * @param game String
+   * @param id int
+   * @return type char
+   */
+  private char getType(final StatementCache reader, final String game,
+      final int id) {
     char type = 0;
     try {
-      ResultSet rs;
-      rs = stmt.executeQuery("SELECT * FROM PLAYER "
-                               + "WHERE ID= " + id);
+      PreparedStatement ps = reader.prepare(SELECT_TYPE);
+      ps.setString(1, game);
+      ps.setInt(2, id);
+      ResultSet rs = ps.executeQuery();
       try {
         while (rs.next()) {
           type = rs.getString("TYPE").charAt(0);
@@ -176,23 +588,76 @@ public class SqLite {
     return type;
   }
 
+  /**
+   * Get ids of all unfinished games that have a stored player.
+   * @return game ids
+   */
+  @Override
+  public List<String> getGames() {
+    List<String> games = new ArrayList<>();
+    StatementCache reader = borrow();
+    try {
+      ResultSet rs = reader.prepare(SELECT_GAMES).executeQuery();
+      try {
+        while (rs.next()) {
+          games.add(rs.getString("GAME"));
+        }
+      } finally {
+        rs.close();
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("Could not read games", e);
+    } finally {
+      release(reader);
+    }
+    return games;
+  }
+
   /**
    * Update board after reboot.
    * @param board GameBoard
    */
   public void inProgress(final GameBoard board) {
+    inProgress(DEFAULT_GAME, board);
+  }
+
+  /**
+   * Update board of one game after reboot.
+   * @param game String
+   * @param board GameBoard
+   */
+  @Override
+  public void inProgress(final String game, final GameBoard board) {
+    StatementCache reader = borrow();
+    try {
+      inProgress(reader, game, board);
+    } finally {
+      release(reader);
+    }
+  }
+
+  /**
+   * Update board of one game from a reader connection.
+   * @param reader StatementCache
+   * @param game String
+   * @param board GameBoard
+   */
+  private void inProgress(final StatementCache reader, final String game,
+      final GameBoard board) {
     int move1 = 0;
     int move2 = 0;
-    char[][] state = new char[DIM][DIM];
+    int[] shape = getShape(reader, game);
+    char[][] state = new char[shape[0]][shape[0]];
     Player p1 = new Player();
     Player p2 = new Player();
     p1.setId(1);
     p2.setId(2);
-    p1.setType(getType(1));
-    p2.setType(getType(2));
+    p1.setType(getType(reader, game, 1));
+    p2.setType(getType(reader, game, 2));
     try {
-      ResultSet rs;
-      rs = stmt.executeQuery("SELECT * FROM GAMEBOARD ");
+      PreparedStatement ps = reader.prepare(SELECT_MOVES);
+      ps.setString(1, game);
+      ResultSet rs = ps.executeQuery();
       try {
         while (rs.next()) {
           int winner = rs.getInt("WINNER");
@@ -217,13 +682,15 @@ public class SqLite {
       } finally {
         rs.close();
       }
-      if (getType(1) != '\u0000' && getType(2) != '\u0000') {
+      if (p1.getType() != '\u0000' && p2.getType() != '\u0000') {
         board.setGameStarted(true);
       } else {
         board.setGameStarted(false);
       }
       board.setTurn(1 + move1 - move2);
-      board.setBoardState(state);
+      board.setWinLength(shape[1]);
+      board.setEngine(BoardEngine.forName(getEngine(reader, game)));
+      board.adoptBoardState(state);
       board.setP1(p1);
       board.setP2(p2);
     } catch (SQLException e) {
@@ -235,10 +702,14 @@ public class SqLite {
   /**
    * close database.
    */
-  public void close() {
+  @Override
+  public synchronized void close() {
     try {
-      stmt.close();
-      conn.close();
+      for (StatementCache reader : readers) {
+        reader.close();
+      }
+      readers.clear();
+      statements.close();
     } catch (SQLException e) {
       // TODO Auto-generated catch block
       e.printStackTrace();
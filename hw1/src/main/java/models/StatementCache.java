@@ -0,0 +1,63 @@
+package models;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Prepared statements of one connection, keyed by their SQL text.
+ * Every query is parsed and planned by SQLite once per connection and
+ * then only re-bound. Not thread safe: callers serialize access.
+ */
+class StatementCache {
+
+  /**
+   * Connection the statements belong to.
+   */
+  private final Connection conn;
+
+  /**
+   * Prepared statements by SQL.
+   */
+  private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+  /**
+   * Create cache for a connection.
+   * @param connection Connection
+   */
+  StatementCache(final Connection connection) {
+    this.conn = connection;
+  }
+
+  /**
+   * Get prepared statement for a query, preparing it on first use.
+   * @param sql query with ? placeholders
+   * @return PreparedStatement with cleared parameters
+   * @throws SQLException on database error
+   */
+  PreparedStatement prepare(final String sql) throws SQLException {
+    PreparedStatement ps = statements.get(sql);
+    if (ps == null) {
+      ps = conn.prepareStatement(sql);
+      statements.put(sql, ps);
+    } else {
+      ps.clearParameters();
+    }
+    return ps;
+  }
+
+  /**
+   * Close all statements and the connection.
+   * @throws SQLException on database error
+   */
+  void close() throws SQLException {
+    for (PreparedStatement ps : statements.values()) {
+      ps.close();
+    }
+    statements.clear();
+    conn.close();
+  }
+
+}
@@ -0,0 +1,105 @@
+package models;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Object kept per thread for reuse, such as a codec and its buffer. A
+ * platform thread keeps its object for life. A virtual thread runs one
+ * task, so a plain ThreadLocal would build a new object per task; a pool
+ * starting virtual threads calls releaseAll as each task ends, which
+ * hands the thread's objects to an idle pool the next thread takes from.
+ * @param <T> type of the object
+ */
+public final class ThreadCache<T> {
+
+  /**
+   * Most idle objects kept per cache.
+   */
+  private static final int MAX_IDLE = 256;
+
+  /**
+   * Every cache created.
+   */
+  private static final List<ThreadCache<?>> CACHES =
+      new CopyOnWriteArrayList<>();
+
+  /**
+   * Creates an object when none is idle.
+   */
+  private final Supplier<T> factory;
+
+  /**
+   * Object of each thread.
+   */
+  private final ThreadLocal<T> local = new ThreadLocal<>();
+
+  /**
+   * Objects released by finished tasks.
+   */
+  private final Queue<T> idle = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Number of idle objects.
+   */
+  private final AtomicInteger idleCount = new AtomicInteger();
+
+  /**
+   * Create a cache.
+   * @param supplier creates an object when none is idle
+   */
+  public ThreadCache(final Supplier<T> supplier) {
+    this.factory = supplier;
+    CACHES.add(this);
+  }
+
+  /**
+   * Get the object of the current thread, taking an idle one or creating
+   * one on first use.
+   * @return T
+   */
+  public T get() {
+    T value = local.get();
+    if (value == null) {
+      value = idle.poll();
+      if (value == null) {
+        value = factory.get();
+      } else {
+        idleCount.decrementAndGet();
+      }
+      local.set(value);
+    }
+    return value;
+  }
+
+  /**
+   * Hand the object of the current thread to the idle pool.
+   */
+  private void release() {
+    T value = local.get();
+    if (value == null) {
+      return;
+    }
+    local.remove();
+    if (idleCount.incrementAndGet() <= MAX_IDLE) {
+      idle.offer(value);
+    } else {
+      idleCount.decrementAndGet();
+    }
+  }
+
+  /**
+   * Hand the objects of the current thread to their idle pools. The
+   * thread must not use objects it got before.
+   */
+  public static void releaseAll() {
+    for (ThreadCache<?> cache : CACHES) {
+      cache.release();
+    }
+  }
+
+}
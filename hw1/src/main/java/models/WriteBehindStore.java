@@ -0,0 +1,322 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Write-behind stage in front of a GameStore.
+ * Request threads queue writes; one writer thread applies everything
+ * queued during a flush window and commits it as a single transaction.
+ */
+public class WriteBehindStore {
+
+  /**
+   * When a submitted write counts as done.
+   */
+  public enum Durability {
+    /**
+     * submit returns once the transaction holding the write committed.
+     */
+    SYNC,
+    /**
+     * submit returns as soon as the write is queued.
+     */
+    ASYNC
+  }
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOG =
+      LoggerFactory.getLogger(WriteBehindStore.class);
+
+  /**
+   * How long the writer sleeps between checks for shutdown.
+   */
+  private static final long IDLE_POLL_MILLIS = 100;
+
+  /**
+   * A queued write and whether its batch committed or failed.
+   */
+  public static final class Write {
+
+    /**
+     * Database operation.
+     */
+    private final Consumer<GameStore> op;
+
+    /**
+     * Set by the writer once the write's batch committed or failed.
+     */
+    private volatile boolean done;
+
+    /**
+     * Why the write's batch failed, null if it committed.
+     */
+    private volatile RuntimeException failure;
+
+    /**
+     * Create a write.
+     * @param operation database operation
+     */
+    private Write(final Consumer<GameStore> operation) {
+      this.op = operation;
+    }
+  }
+
+  /**
+   * Database written to.
+   */
+  private final GameStore db;
+
+  /**
+   * Pending writes.
+   */
+  private final BlockingQueue<Write> queue;
+
+  /**
+   * Largest number of writes committed together.
+   */
+  private final int maxBatch;
+
+  /**
+   * Time the writer keeps collecting writes after the first one.
+   */
+  private final long flushWindowNanos;
+
+  /**
+   * Durability of submitted writes.
+   */
+  private final Durability durability;
+
+  /**
+   * Writer thread.
+   */
+  private final Thread writer;
+
+  /**
+   * Told the duration of every commit in nanoseconds.
+   */
+  private volatile LongConsumer commitListener = nanos -> { };
+
+  /**
+   * Guards done flags; a lock rather than a monitor so that virtual
+   * threads waiting for a commit release their carrier thread.
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /**
+   * Signalled after every batch.
+   */
+  private final Condition committed = lock.newCondition();
+
+  /**
+   * Cleared when the store is closed.
+   */
+  private volatile boolean running = true;
+
+  /**
+   * Create and start a write-behind store.
+   * @param database GameStore to write to
+   * @param capacity bound of the write queue
+   * @param flushWindowMillis time to collect writes into one transaction
+   * @param mode Durability
+   */
+  public WriteBehindStore(final GameStore database, final int capacity,
+      final long flushWindowMillis, final Durability mode) {
+    this.db = database;
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.maxBatch = capacity;
+    this.flushWindowNanos = TimeUnit.MILLISECONDS.toNanos(flushWindowMillis);
+    this.durability = mode;
+    this.writer = new Thread(this::run, "write-behind");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  /**
+   * Get durability of submitted writes.
+   * @return Durability
+   */
+  public Durability getDurability() {
+    return durability;
+  }
+
+  /**
+   * Set listener told the duration of every commit in nanoseconds.
+   * @param listener LongConsumer
+   */
+  public void setCommitListener(final LongConsumer listener) {
+    this.commitListener = listener;
+  }
+
+  /**
+   * Queue a database write.
+   * Blocks while the queue is full and, in SYNC mode, until committed.
+   * @param op database operation
+   * @throws IllegalStateException in SYNC mode if the write's batch
+   *     failed and was rolled back
+   */
+  public void submit(final Consumer<GameStore> op) {
+    await(enqueue(op));
+  }
+
+  /**
+   * Queue a database write without waiting for its commit, so that a
+   * caller holding up others can wait for the commit after letting go.
+   * Blocks while the queue is full.
+   * @param op database operation
+   * @return Write to pass to await
+   */
+  public Write enqueue(final Consumer<GameStore> op) {
+    Write write = new Write(op);
+    boolean interrupted = false;
+    while (true) {
+      try {
+        queue.put(write);
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    return write;
+  }
+
+  /**
+   * Wait until a queued write is committed; returns at once in ASYNC mode.
+   * @param write Write returned by enqueue, null for none
+   * @throws IllegalStateException if the write's batch failed and was
+   *     rolled back
+   */
+  public void await(final Write write) {
+    if (write == null || durability != Durability.SYNC) {
+      return;
+    }
+    boolean interrupted = false;
+    lock.lock();
+    try {
+      while (!write.done) {
+        try {
+          committed.await();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (write.failure != null) {
+      throw new IllegalStateException("Database write failed",
+          write.failure);
+    }
+  }
+
+  /**
+   * Writer loop: collect a batch, apply it and commit it.
+   */
+  private void run() {
+    List<Write> batch = new ArrayList<>();
+    while (running || !queue.isEmpty()) {
+      try {
+        Write first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        collect(batch);
+      } catch (InterruptedException e) {
+        queue.drainTo(batch);
+      }
+      flush(batch);
+    }
+  }
+
+  /**
+   * Add writes arriving within the flush window to a batch.
+   * @param batch writes collected so far
+   * @throws InterruptedException if the writer is interrupted
+   */
+  private void collect(final List<Write> batch) throws InterruptedException {
+    long deadline = System.nanoTime() + flushWindowNanos;
+    while (batch.size() < maxBatch) {
+      long left = deadline - System.nanoTime();
+      if (left <= 0) {
+        queue.drainTo(batch, maxBatch - batch.size());
+        return;
+      }
+      Write next = queue.poll(left, TimeUnit.NANOSECONDS);
+      if (next == null) {
+        return;
+      }
+      batch.add(next);
+    }
+  }
+
+  /**
+   * Apply and commit a batch, then release its waiters. A batch that
+   * throws is rolled back as a whole and fails all of its writes; the
+   * writer goes on with the next batch.
+   * @param batch writes to commit
+   */
+  private void flush(final List<Write> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    RuntimeException failure = null;
+    try {
+      for (Write write : batch) {
+        write.op.accept(db);
+      }
+      long start = System.nanoTime();
+      db.commit();
+      commitListener.accept(System.nanoTime() - start);
+    } catch (RuntimeException e) {
+      failure = e;
+      try {
+        db.rollback();
+      } catch (RuntimeException rollback) {
+        e.addSuppressed(rollback);
+      }
+      LOG.error("Failed to commit a batch of {} writes", batch.size(), e);
+    }
+    lock.lock();
+    try {
+      for (Write write : batch) {
+        write.failure = failure;
+        write.done = true;
+      }
+      committed.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    batch.clear();
+  }
+
+  /**
+   * Commit all queued writes and stop the writer.
+   */
+  public void close() {
+    running = false;
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
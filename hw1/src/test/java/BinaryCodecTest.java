@@ -0,0 +1,83 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import models.BinaryCodec;
+import models.GameBoard;
+import models.Player;
+import org.junit.jupiter.api.Test;
+
+
+public class BinaryCodecTest {
+
+  private Player player(int id, char type) {
+    Player p = new Player();
+    p.setId(id);
+    p.setType(type);
+    return p;
+  }
+
+  @Test
+  public void testLayout() {
+    GameBoard board = new GameBoard();
+    board.setP1(player(1, 'X'));
+    board.setP2(player(2, 'O'));
+    board.setGameStarted(true);
+    board.setTurn(2);
+    board.setWinner(1);
+    board.setIsDraw(true);
+    char[][] state = new char[3][3];
+    state[0][0] = 'X';
+    state[0][1] = 'O';
+    state[0][2] = 'Z';
+    state[2][2] = 'X';
+    board.setBoardState(state);
+    ByteBuffer frame = BinaryCodec.encode(board);
+    assertEquals(BinaryCodec.frameLength(3), frame.remaining());
+    byte[] expected = {1, 3, 2, 1, 3, 'X', 'O', 3,
+        // cells 0-3: X, O, other, empty
+        (byte) 0b00111001, 0, 1};
+    byte[] actual = new byte[frame.remaining()];
+    frame.get(actual);
+    assertArrayEquals(expected, actual);
+  }
+
+  @Test
+  public void testRoundTrip() {
+    GameBoard board = new GameBoard();
+    board.setP1(player(1, 'O'));
+    board.setP2(player(2, 'X'));
+    board.setGameStarted(true);
+    board.setTurn(1);
+    board.setWinLength(5);
+    char[][] state = new char[19][19];
+    for (int i = 0; i < 19; i++) {
+      state[i][(i * 7) % 19] = i % 2 == 0 ? 'X' : 'O';
+    }
+    board.setBoardState(state);
+    ByteBuffer frame = BinaryCodec.encode(board);
+    assertEquals(99, frame.remaining());
+    GameBoard decoded = BinaryCodec.decode(frame);
+    assertEquals(0, frame.position());
+    assertArrayEquals(state, decoded.getBoardState());
+    assertEquals('O', decoded.getP1().getType());
+    assertEquals(2, decoded.getP2().getId());
+    assertEquals(1, decoded.getTurn());
+    assertEquals(true, decoded.isGameStarted());
+    assertEquals(false, decoded.getIsDraw());
+    assertEquals(5, decoded.getWinLength());
+  }
+
+  @Test
+  public void testNewGame() {
+    GameBoard decoded = BinaryCodec.decode(BinaryCodec.encode(
+        new GameBoard()));
+    assertNull(decoded.getP1());
+    assertEquals(0, decoded.getWinner());
+    assertThrows(IllegalArgumentException.class,
+        () -> BinaryCodec.decode(ByteBuffer.wrap(new byte[] {2})));
+  }
+
+}
@@ -0,0 +1,155 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import models.BitBoardEngine;
+import models.BoardEngine;
+import models.GameBoard;
+import models.Message;
+import models.Move;
+import models.Player;
+import org.junit.jupiter.api.Test;
+
+
+public class BitBoardEngineTest {
+
+  Player p1 = new Player() {
+    {
+      setType('X');
+      setId(1);
+    }
+  };
+
+  Player p2 = new Player() {
+    {
+      setType('O');
+      setId(2);
+    }
+  };
+
+  GameBoard board = new GameBoard() {
+    {
+      setEngine(new BitBoardEngine());
+      setP1(p1);
+      setP2(p2);
+      setGameStarted(true);
+      setTurn(1);
+      setBoardState(new char[3][3]);
+    }
+  };
+
+  private Move move(final Player player, final int x, final int y) {
+    Move move = new Move();
+    move.setPlayer(player);
+    move.setMoveX(x);
+    move.setMoveY(y);
+    return move;
+  }
+
+  @Test
+  public void testForName() {
+    assertEquals(BitBoardEngine.class,
+        BoardEngine.forName(BoardEngine.BITBOARD).getClass());
+  }
+
+  @Test
+  public void testInvalidMove() {
+    board.makeMove(move(p1, 1, 1));
+    board.setTurn(2);
+    final Message msg = new Message();
+    assertEquals(false, board.isValid(move(p2, 1, 1), msg));
+    assertEquals("Invalid Move. Try Again!", msg.getMessage());
+    assertEquals(true, board.isValid(move(p2, 1, 2), msg));
+  }
+
+  @Test
+  public void testWinnerDiagonalLeft() {
+    Move last = null;
+    for (int i = 0; i < 3; i++) {
+      last = move(p1, 2 - i, i);
+      board.makeMove(last);
+    }
+    assertEquals(true, board.isOver(last));
+    assertEquals(1, board.getWinner());
+  }
+
+  @Test
+  public void testWinnerColumn() {
+    board.makeMove(move(p1, 0, 0));
+    Move last = null;
+    for (int i = 0; i < 3; i++) {
+      last = move(p2, i, 2);
+      board.makeMove(last);
+    }
+    assertEquals(true, board.isOver(last));
+    assertEquals(2, board.getWinner());
+  }
+
+  @Test
+  public void testNotOver() {
+    Move last = move(p1, 0, 0);
+    board.makeMove(last);
+    board.makeMove(move(p1, 0, 1));
+    assertEquals(false, board.isOver(last));
+  }
+
+  @Test
+  public void testDrawFromLoadedState() {
+    char[][] state = {
+        {'X', 'X', 'O'},
+        {'O', 'O', 'X'},
+        {'X', 'X', '\u0000'}
+    };
+    board.setBoardState(state);
+    Move last = move(p2, 2, 2);
+    board.makeMove(last);
+    assertEquals(true, board.isOver(last));
+    assertEquals(true, board.getIsDraw());
+  }
+
+  @Test
+  public void testFourInARowOnFiveByFive() {
+    board.setWinLength(4);
+    board.setBoardState(new char[5][5]);
+    Move last = null;
+    for (int i = 1; i < 4; i++) {
+      last = move(p2, 4, i);
+      board.makeMove(last);
+      assertEquals(false, board.isOver(last));
+    }
+    last = move(p2, 4, 4);
+    board.makeMove(last);
+    assertEquals(true, board.isOver(last));
+    assertEquals(2, board.getWinner());
+  }
+
+  @Test
+  public void testCopyKeepsMarks() {
+    board.makeMove(move(p1, 0, 0));
+    board.makeMove(move(p1, 0, 1));
+    GameBoard copy = board.copy();
+    board.makeMove(move(p2, 1, 1));
+    assertEquals(true, copy.getEngine().isEmpty(1, 1));
+    Move last = move(p1, 0, 2);
+    copy.makeMove(last);
+    assertEquals(true, copy.isOver(last));
+    assertEquals(1, copy.getWinner());
+    assertEquals(0, board.getWinner());
+  }
+
+  @Test
+  public void testEightByEightFull() {
+    board.setWinLength(8);
+    char[][] state = new char[8][8];
+    for (int i = 0; i < 8; i++) {
+      for (int j = 0; j < 8; j++) {
+        state[i][j] = (i + j / 2) % 2 == 0 ? 'X' : 'O';
+      }
+    }
+    state[7][7] = '\u0000';
+    board.setBoardState(state);
+    Move last = move(p1, 7, 7);
+    board.makeMove(last);
+    assertEquals(true, board.isOver(last));
+    assertEquals(true, board.getIsDraw());
+  }
+
+}
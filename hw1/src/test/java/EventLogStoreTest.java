@@ -0,0 +1,210 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import models.BoardEngine;
+import models.EventLogStore;
+import models.GameBoard;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+public class EventLogStoreTest {
+
+  Path dir;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("event-log");
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.list(dir)) {
+      files.forEach(f -> f.toFile().delete());
+    }
+    Files.delete(dir);
+  }
+
+  private long count(String glob) throws IOException {
+    long n = 0;
+    try (Stream<Path> files = Files.list(dir)) {
+      n = files.filter(f -> f.getFileName().toString().startsWith(glob))
+          .count();
+    }
+    return n;
+  }
+
+  @Test
+  public void testInProgressAfterRestart() {
+    EventLogStore log = new EventLogStore(dir.toString());
+    log.start();
+    log.insertGame("a", 4, 3);
+    log.insertPlayer("a", 1, 'X');
+    log.insertPlayer("a", 2, 'O');
+    log.insertBoard("a", 1, 0, 0, 0, 0);
+    log.insertBoard("a", 2, 3, 3, 0, 0);
+    log.insertBoard("a", 1, 1, 1, 0, 0);
+    log.commit();
+    log.close();
+    log.start();
+    assertEquals(1, log.getGames().size());
+    GameBoard board = new GameBoard();
+    log.inProgress("a", board);
+    assertEquals(4, board.getDim());
+    assertEquals(3, board.getWinLength());
+    assertEquals('X', board.getBoardState()[1][1]);
+    assertEquals('O', board.getBoardState()[3][3]);
+    assertEquals(2, board.getTurn());
+    assertEquals(true, board.isGameStarted());
+    log.close();
+  }
+
+  @Test
+  public void testClearGame() {
+    EventLogStore log = new EventLogStore(dir.toString());
+    log.start();
+    log.insertPlayer("a", 1, 'X');
+    log.insertBoard("a", 1, 0, 0, 0, 0);
+    log.insertPlayer("b", 1, 'O');
+    log.clear("a");
+    log.insertPlayer("a", 1, 'O');
+    log.close();
+    log.start();
+    assertEquals(2, log.getGames().size());
+    GameBoard board = new GameBoard();
+    log.inProgress("a", board);
+    assertEquals('O', board.getP1().getType());
+    assertEquals(0, board.getMoveCount());
+    assertFalse(board.isGameStarted());
+    log.close();
+  }
+
+  @Test
+  public void testEngineRoundTrip() {
+    EventLogStore log = new EventLogStore(dir.toString());
+    log.start();
+    log.insertGame("bits", 8, 4, BoardEngine.BITBOARD);
+    log.insertPlayer("bits", 1, 'X');
+    log.insertBoard("bits", 1, 7, 7, 0, 0);
+    log.insertGame("array", 8, 4);
+    log.insertPlayer("array", 1, 'X');
+    log.close();
+    log.start();
+    GameBoard board = new GameBoard();
+    log.inProgress("bits", board);
+    assertEquals(BoardEngine.BITBOARD, board.getEngine().name());
+    assertFalse(board.getEngine().isEmpty(7, 7));
+    board = new GameBoard();
+    log.inProgress("array", board);
+    assertEquals(BoardEngine.ARRAY, board.getEngine().name());
+    log.close();
+  }
+
+  @Test
+  public void testFinishedGamesNotRecovered() {
+    EventLogStore log = new EventLogStore(dir.toString());
+    log.start();
+    log.insertPlayer("open", 1, 'X');
+    log.insertPlayer("won", 1, 'X');
+    log.insertBoard("won", 1, 0, 0, 1, 0);
+    log.insertPlayer("drawn", 1, 'X');
+    log.insertBoard("drawn", 1, 0, 0, 0, 1);
+    log.close();
+    log.start();
+    assertEquals(1, log.getGames().size());
+    assertEquals("open", log.getGames().get(0));
+    log.close();
+  }
+
+  @Test
+  public void testRotationAndSnapshot() throws IOException {
+    // 4 records per segment, snapshot after every 2 closed segments
+    EventLogStore log = new EventLogStore(dir.toString(), 4, 2, true);
+    log.start();
+    for (int g = 0; g < 6; g++) {
+      String game = "g" + g;
+      log.insertPlayer(game, 1, 'X');
+      log.insertPlayer(game, 2, 'O');
+      log.insertBoard(game, 1, 0, g % 3, 0, 0);
+      if (g % 2 == 0) {
+        log.clear(game);
+      }
+      log.commit();
+    }
+    assertEquals(1, count("snapshot-"));
+    assertTrue(count("segment-") <= 2);
+    log.close();
+    log.start();
+    assertEquals(3, log.getGames().size());
+    GameBoard board = new GameBoard();
+    log.inProgress("g5", board);
+    assertEquals('X', board.getBoardState()[0][2]);
+    board = new GameBoard();
+    log.inProgress("g4", board);
+    assertEquals(0, board.getMoveCount());
+    log.close();
+  }
+
+  @Test
+  public void testFailedRotationRejectsAppends() throws IOException {
+    EventLogStore log = new EventLogStore(dir.toString(), 2, 4, false);
+    log.start();
+    log.insertPlayer("a", 1, 'X');
+    log.insertBoard("a", 1, 0, 0, 0, 0);
+    // A directory where the next segment goes keeps it from opening
+    Path next = dir.resolve("segment-0000000000000001.log");
+    Files.createDirectory(next);
+    assertThrows(UncheckedIOException.class,
+        () -> log.insertBoard("a", 1, 1, 1, 0, 0));
+    Files.delete(next);
+    log.insertBoard("a", 1, 1, 1, 0, 0);
+    log.close();
+    log.start();
+    GameBoard board = new GameBoard();
+    log.inProgress("a", board);
+    assertEquals(2, board.getMoveCount());
+    log.close();
+  }
+
+  @Test
+  public void testTornRecordIgnored() throws IOException {
+    EventLogStore log = new EventLogStore(dir.toString());
+    log.start();
+    log.insertPlayer("a", 1, 'X');
+    log.insertBoard("a", 1, 0, 0, 0, 0);
+    log.insertBoard("a", 1, 1, 0, 0, 0);
+    log.close();
+    // Corrupt the last record as a crash in the middle of a write would
+    try (Stream<Path> files = Files.list(dir)) {
+      Path segment = files.findFirst().get();
+      try (RandomAccessFile raf = new RandomAccessFile(segment.toFile(),
+          "rw")) {
+        raf.seek(2 * 48 + 8);
+        raf.writeShort(2);
+      }
+    }
+    log.start();
+    GameBoard board = new GameBoard();
+    log.inProgress("a", board);
+    assertEquals(1, board.getMoveCount());
+    // Appends continue over the torn record
+    log.insertBoard("a", 1, 2, 2, 0, 0);
+    log.close();
+    log.start();
+    board = new GameBoard();
+    log.inProgress("a", board);
+    assertEquals(2, board.getMoveCount());
+    assertEquals('X', board.getBoardState()[2][2]);
+    log.close();
+  }
+
+}
@@ -1,9 +1,16 @@
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import controllers.PlayGame;
+import models.BoardEngine;
+import models.BoardView;
+import models.EncodedBoard;
 import models.GameBoard;
 import models.Message;
 import models.Move;
+import models.MoveCheck;
 import models.Player;
 import org.junit.jupiter.api.Test;
 
@@ -367,6 +374,182 @@ public class GameBoardTest {
     assertEquals(false, board.isOver(move));
   }
 
+  @Test
+  public void testGomokuDiagonalWin() {
+    Move move = new Move();
+
+    char[][] state = new char[15][15];
+    board.setWinLength(5);
+    board.setBoardState(state);
+    move.setPlayer(p1);
+    for (int i = 0; i < 4; i++) {
+      move.setMoveX(10 + i);
+      move.setMoveY(4 - i);
+      board.makeMove(move);
+      assertEquals(false, board.isOver(move));
+    }
+    // Last mark fills the middle of the line
+    move.setMoveX(9);
+    move.setMoveY(5);
+    board.makeMove(move);
+    assertEquals(true, board.isOver(move));
+    assertEquals(1, board.getWinner());
+  }
+
+  @Test
+  public void testGomokuBounds() {
+    final Move move = new Move();
+    final Message msg = new Message();
+
+    board.setWinLength(5);
+    board.setBoardState(new char[15][15]);
+    board.setTurn(1);
+    move.setPlayer(p1);
+    move.setMoveX(14);
+    move.setMoveY(14);
+    assertEquals(true, board.isValid(move, msg));
+    move.setMoveX(15);
+    assertEquals(false, board.isValid(move, msg));
+    assertEquals("Invalid Row Index!", msg.getMessage());
+  }
+
+  @Test
+  public void testWinOnLastCell() {
+    Move move = new Move();
+
+    char[][] state = {
+        {'X', 'O', 'X'},
+        {'X', 'O', 'O'},
+        {'O', 'X', '\u0000'}
+    };
+    board.setWinLength(2);
+    board.setBoardState(state);
+    move.setPlayer(p2);
+    move.setMoveX(2);
+    move.setMoveY(2);
+    board.makeMove(move);
+    assertEquals(true, board.isOver(move));
+    assertEquals(2, board.getWinner());
+    assertEquals(false, board.getIsDraw());
+  }
+
+  @Test
+  public void testMoveCount() {
+    Move move = new Move();
+
+    char[][] state = new char[DIM][DIM];
+    state[1][1] = 'O';
+    board.setBoardState(state);
+    assertEquals(1, board.getMoveCount());
+    move.setPlayer(p1);
+    move.setMoveX(0);
+    move.setMoveY(0);
+    board.makeMove(move);
+    assertEquals(2, board.getMoveCount());
+    board.makeMove(move);
+    assertEquals(2, board.getMoveCount());
+  }
+
+  @Test
+  public void testEtagNamesOrigin() {
+    GameBoard first = new GameBoard();
+    GameBoard second = new GameBoard();
+    assertEquals(first.getVersion(), second.getVersion());
+    assertNotEquals(first.encoded().etag(), second.encoded().etag());
+    assertEquals(first.encoded().etag(), first.copy().encoded().etag());
+    GameBoard changed = first.copy();
+    changed.setTurn(2);
+    assertEquals(first.getVersion() + 1, changed.getVersion());
+    assertNotEquals(first.encoded().etag(), changed.encoded().etag());
+  }
+
+  @Test
+  public void testCopy() {
+    board.setEngine(BoardEngine.forName(BoardEngine.BITBOARD));
+    board.setBoardState(new char[DIM][DIM]);
+    board.setTurn(1);
+    EncodedBoard json = board.encoded();
+    GameBoard copy = board.copy();
+    assertEquals(board.getVersion(), copy.getVersion());
+    assertSame(json, copy.encoded());
+    Move move = new Move();
+    move.setPlayer(p1);
+    move.setMoveX(1);
+    move.setMoveY(1);
+    assertEquals(true, copy.isValid(move, new Message()));
+    copy.makeMove(move);
+    copy.switchTurn();
+    assertEquals('X', copy.getBoardState()[1][1]);
+    assertEquals(1, copy.getMoveCount());
+    assertEquals(2, copy.getTurn());
+    assertNotEquals(board.getVersion(), copy.getVersion());
+    assertEquals('\u0000', board.getBoardState()[1][1]);
+    assertEquals(0, board.getMoveCount());
+    assertEquals(1, board.getTurn());
+    assertEquals(true, board.isValid(move, new Message()));
+  }
+
+  @Test
+  public void testView() {
+    char[][] state = new char[DIM][DIM];
+    state[0][2] = 'O';
+    board.setBoardState(state);
+    state[1][1] = 'X';
+    BoardView view = board.view();
+    assertSame(view, board.view());
+    assertEquals(DIM, view.dim());
+    assertEquals('O', view.cell(0, 2));
+    assertEquals(true, view.isEmpty(1, 1));
+    assertEquals("\u0000\u0000O", view.row(0).toString());
+    Move move = new Move();
+    move.setPlayer(p1);
+    move.setMoveX(1);
+    move.setMoveY(1);
+    board.makeMove(move);
+    assertEquals('X', view.cell(1, 1));
+    assertEquals(2, view.moveCount());
+    assertSame(board.encoded(), view.encoded());
+    char[][] copy = view.toArray();
+    copy[2][2] = 'X';
+    assertEquals(true, view.isEmpty(2, 2));
+  }
+
+  @Test
+  public void testMoveCode() {
+    assertEquals(1100, GameBoard.moveCode(1, 10, 0));
+    assertEquals(234, GameBoard.moveCode(2, 3, 4));
+    assertEquals(12, GameBoard.moveCode(0, 1, 2));
+    assertEquals(2123456789, GameBoard.moveCode(2, 123, 456789));
+    assertThrows(NumberFormatException.class,
+        () -> GameBoard.moveCode(1, -1, 0));
+    assertThrows(NumberFormatException.class,
+        () -> GameBoard.moveCode(2, 2147, 483648));
+    assertThrows(NumberFormatException.class,
+        () -> GameBoard.moveCode(1, 2147483647, 2147483647));
+  }
+
+  @Test
+  public void testCheck() {
+    board.setBoardState(new char[DIM][DIM]);
+    board.setTurn(1);
+    assertEquals(MoveCheck.VALID, board.check(1, 2, 2));
+    assertEquals(MoveCheck.NOT_YOUR_TURN, board.check(2, 2, 2));
+    assertEquals(MoveCheck.INVALID_ROW, board.check(1, DIM, 0));
+    assertEquals(MoveCheck.INVALID_COLUMN, board.check(1, 0, -1));
+    Move move = new Move();
+    move.setPlayer(p1);
+    board.makeMove(move);
+    assertEquals(MoveCheck.TAKEN, board.check(1, 0, 0));
+    Message message = new Message();
+    assertEquals(false, board.isValid(move, message));
+    assertEquals(100, message.getCode());
+    assertEquals(MoveCheck.TAKEN.getMessage(), message.getMessage());
+    board.setWinner(1);
+    assertEquals(MoveCheck.GAME_ENDED, board.check(1, 2, 2));
+    board.setGameStarted(false);
+    assertEquals(MoveCheck.NOT_STARTED, board.check(1, 2, 2));
+  }
+
   @Test
   public void testPlayGameConstructor() {
     PlayGame.make();
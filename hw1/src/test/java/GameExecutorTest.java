@@ -0,0 +1,133 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import controllers.GameExecutor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import models.GameBoard;
+import models.Message;
+import models.Move;
+import models.Player;
+import org.junit.jupiter.api.Test;
+
+
+public class GameExecutorTest {
+
+  private Player player(int id, char type) {
+    Player p = new Player();
+    p.setId(id);
+    p.setType(type);
+    return p;
+  }
+
+  @Test
+  public void testRacingMovesToOneCell() throws InterruptedException {
+    GameExecutor executor = new GameExecutor(4);
+    GameBoard board = new GameBoard();
+    board.setP1(player(1, 'X'));
+    board.setP2(player(2, 'O'));
+    board.setBoardState(new char[3][3]);
+    board.setGameStarted(true);
+    board.setTurn(1);
+    AtomicInteger accepted = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      Thread thread = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        boolean valid = executor.call("race", () -> {
+          Move move = new Move();
+          move.setPlayer(board.getP1());
+          boolean ok = board.isValid(move, new Message());
+          if (ok) {
+            board.makeMove(move);
+            board.switchTurn();
+          }
+          return ok;
+        });
+        if (valid) {
+          accepted.incrementAndGet();
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(1, accepted.get());
+    assertEquals('X', board.getBoardState()[0][0]);
+    executor.shutdown();
+  }
+
+  @Test
+  public void testGamesRunInParallel() throws InterruptedException {
+    GameExecutor executor = new GameExecutor(2);
+    CountDownLatch release = new CountDownLatch(1);
+    executor.execute("blocked", () -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    CountDownLatch done = new CountDownLatch(1);
+    executor.execute("other", done::countDown);
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    release.countDown();
+    assertEquals(2, executor.size());
+    executor.shutdown();
+  }
+
+  @Test
+  public void testCommandsKeepOrderAndErrors() {
+    GameExecutor executor = new GameExecutor(2);
+    List<Integer> seen = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      final int n = i;
+      executor.execute("ordered", () -> seen.add(n));
+    }
+    assertEquals(1000, (int) executor.call("ordered", seen::size));
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, (int) seen.get(i));
+    }
+    assertThrows(IllegalStateException.class, () -> executor.call("ordered",
+        () -> {
+          throw new IllegalStateException("rejected");
+        }));
+    assertEquals(1000, (int) executor.call("ordered", seen::size));
+    executor.shutdown();
+  }
+
+  @Test
+  public void testRetireIdleMailboxes() throws InterruptedException {
+    GameExecutor executor = new GameExecutor(2);
+    CountDownLatch release = new CountDownLatch(1);
+    executor.execute("busy", () -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    executor.call("idle", () -> true);
+    executor.call("kept", () -> true);
+    assertEquals(1, executor.retire(game -> !game.equals("kept")));
+    assertEquals(2, executor.size());
+    release.countDown();
+    assertEquals(true, executor.call("busy", () -> true));
+    assertEquals(2, executor.retire(game -> true));
+    assertEquals(0, executor.size());
+    executor.shutdown();
+  }
+
+}
@@ -0,0 +1,132 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import controllers.GameRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import models.GameBoard;
+import models.Move;
+import models.Player;
+import org.junit.jupiter.api.Test;
+
+
+public class GameRegistryTest {
+
+  private static final int DIM = 8;
+
+  private GameBoard board() {
+    GameBoard board = new GameBoard();
+    Player p1 = new Player();
+    p1.setId(1);
+    p1.setType('X');
+    board.setP1(p1);
+    board.setWinLength(DIM + 1);
+    board.setBoardState(new char[DIM][DIM]);
+    board.setGameStarted(true);
+    board.setTurn(1);
+    return board;
+  }
+
+  private boolean canPlace(GameBoard board, int x, int y) {
+    return board.check(1, x, y).isValid();
+  }
+
+  private void place(GameBoard board, int x, int y) {
+    Move move = new Move();
+    move.setPlayer(board.getP1());
+    move.setMoveX(x);
+    move.setMoveY(y);
+    board.makeMove(move);
+  }
+
+  private GameBoard move(GameRegistry games, int x, int y) {
+    while (true) {
+      GameBoard current = games.get("g");
+      if (!canPlace(current, x, y)) {
+        return current;
+      }
+      GameBoard next = current.copy();
+      place(next, x, y);
+      if (games.publish("g", current, next)) {
+        return next;
+      }
+    }
+  }
+
+  private void race(int threads, Runnable update) throws InterruptedException {
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> started = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      Thread thread = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        update.run();
+      });
+      thread.start();
+      started.add(thread);
+    }
+    start.countDown();
+    for (Thread thread : started) {
+      thread.join();
+    }
+  }
+
+  @Test
+  public void testPublishSwapsCopy() {
+    GameRegistry games = new GameRegistry();
+    GameBoard first = board();
+    games.put("g", first);
+    GameBoard next = move(games, 0, 0);
+    assertSame(next, games.get("g"));
+    assertEquals('X', next.getBoardState()[0][0]);
+    assertEquals('\u0000', first.getBoardState()[0][0]);
+    assertSame(next, move(games, 0, 0));
+    GameBoard stale = first.copy();
+    assertFalse(games.publish("g", first, stale));
+    assertSame(next, games.get("g"));
+  }
+
+  @Test
+  public void testUpdatePublishesCopy() {
+    GameRegistry games = new GameRegistry();
+    GameBoard first = board();
+    games.put("g", first);
+    GameBoard next = games.update("g", b -> place(b, 1, 1));
+    assertSame(next, games.get("g"));
+    assertEquals('X', next.getBoardState()[1][1]);
+    assertEquals('\u0000', first.getBoardState()[1][1]);
+    assertNull(games.update("none", b -> { }));
+  }
+
+  @Test
+  public void testRacingUpdatesAllLand() throws InterruptedException {
+    GameRegistry games = new GameRegistry();
+    games.put("g", board());
+    AtomicInteger cell = new AtomicInteger();
+    race(DIM * DIM, () -> {
+      int c = cell.getAndIncrement();
+      move(games, c / DIM, c % DIM);
+    });
+    assertEquals(DIM * DIM, games.get("g").getMoveCount());
+  }
+
+  @Test
+  public void testRacingUpdatesToOneCell() throws InterruptedException {
+    GameRegistry games = new GameRegistry();
+    games.put("g", board());
+    Set<GameBoard> seen = ConcurrentHashMap.newKeySet();
+    race(16, () -> seen.add(move(games, 3, 3)));
+    assertEquals(1, games.get("g").getMoveCount());
+    assertEquals(Set.of(games.get("g")), seen);
+  }
+
+}
@@ -2,6 +2,13 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import com.google.gson.Gson;
 import controllers.PlayGame;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import kong.unirest.HttpResponse;
 import kong.unirest.Unirest;
 import kong.unirest.json.JSONObject;
@@ -621,6 +628,251 @@ public class GameTest {
     System.out.println("Test Echo");
   }
 
+  /**
+  * This is a test case for two games played side by side.
+  */
+  @Test
+  @Order(14)
+  public void multiGameTest() {
+
+    HttpResponse<String> response = Unirest.post("http://localhost:8080/game/a/start")
+        .body("type=X").asString();
+    assertEquals(200, response.getStatus());
+    response = Unirest.post("http://localhost:8080/game/b/start").body("type=O").asString();
+    assertEquals(200, response.getStatus());
+    response = Unirest.get("http://localhost:8080/game/a/join").asString();
+    assertEquals(200, response.getStatus());
+    JSONObject jsonObject = new JSONObject(response.getBody());
+    assertEquals(true, jsonObject.get("gameStarted"));
+
+    // Game a started, game b still waits for player 2
+    response = Unirest.post("http://localhost:8080/game/a/move/1").body("x=0&y=0").asString();
+    assertEquals(200, response.getStatus());
+    jsonObject = new JSONObject(response.getBody());
+    assertEquals(true, jsonObject.get("moveValidity"));
+    response = Unirest.post("http://localhost:8080/game/b/move/1").body("x=0&y=0").asString();
+    assertEquals(200, response.getStatus());
+    jsonObject = new JSONObject(response.getBody());
+    assertEquals(false, jsonObject.get("moveValidity"));
+    assertEquals("Wait for Player 2 to join!", jsonObject.get("message"));
+
+    response = Unirest.get("http://localhost:8080/game/b/gameboard").asString();
+    assertEquals(200, response.getStatus());
+    GameBoard gameBoard = new Gson().fromJson(response.getBody(), GameBoard.class);
+    assertEquals('O', gameBoard.getP1().getType());
+    assertEquals('\u0000', gameBoard.getBoardState()[0][0]);
+
+    response = Unirest.get("http://localhost:8080/game/missing/gameboard").asString();
+    assertEquals(404, response.getStatus());
+
+    System.out.println("Test: Two games played side by side.");
+  }
+
+  /**
+  * This is a test case for a 15x15 board with five in a row.
+  */
+  @Test
+  @Order(15)
+  public void gomokuTest() {
+
+    HttpResponse<String> response = Unirest.post("http://localhost:8080/game/gomoku/start")
+        .body("type=X&dim=15&k=5").asString();
+    assertEquals(200, response.getStatus());
+    response = Unirest.get("http://localhost:8080/game/gomoku/join").asString();
+    assertEquals(200, response.getStatus());
+
+    for (int i = 0; i < 4; i++) {
+      response = Unirest.post("http://localhost:8080/game/gomoku/move/1")
+          .body("x=7&y=" + (5 + i)).asString();
+      assertEquals(true, new JSONObject(response.getBody()).get("moveValidity"));
+      response = Unirest.post("http://localhost:8080/game/gomoku/move/2")
+          .body("x=14&y=" + i).asString();
+      assertEquals(true, new JSONObject(response.getBody()).get("moveValidity"));
+    }
+    response = Unirest.get("http://localhost:8080/game/gomoku/gameboard").asString();
+    assertEquals(0, new JSONObject(response.getBody()).get("winner"));
+
+    response = Unirest.post("http://localhost:8080/game/gomoku/move/1").body("x=7&y=9").asString();
+    assertEquals(true, new JSONObject(response.getBody()).get("moveValidity"));
+    response = Unirest.get("http://localhost:8080/game/gomoku/gameboard").asString();
+    assertEquals(1, new JSONObject(response.getBody()).get("winner"));
+
+    response = Unirest.post("http://localhost:8080/game/bad/start")
+        .body("type=X&dim=15&engine=bitboard").asString();
+    assertEquals(400, response.getStatus());
+
+    System.out.println("Test: Gomoku board with five in a row.");
+  }
+
+  /**
+  * This is a test case for the metrics endpoint.
+  */
+  @Test
+  @Order(16)
+  public void metricsTest() {
+
+    Unirest.post("http://localhost:8080/game/metrics/start").body("type=X").asString();
+    Unirest.get("http://localhost:8080/game/metrics/join").asString();
+    Unirest.post("http://localhost:8080/game/metrics/move/1").body("x=0&y=0").asString();
+    Unirest.post("http://localhost:8080/game/metrics/move/2").body("x=1&y=1").asString();
+
+    HttpResponse<String> response = Unirest.get("http://localhost:8080/metrics").asString();
+    assertEquals(200, response.getStatus());
+    String body = response.getBody();
+
+    assertEquals(true, metric(body,
+        "tictactoe_http_request_seconds_count{route=\"/game/:id/move/:playerId\"}") >= 2);
+    assertEquals(true, metric(body,
+        "tictactoe_move_stage_seconds_count{stage=\"validate\"}") >= 2);
+    assertEquals(true, metric(body,
+        "tictactoe_move_stage_seconds_count{stage=\"broadcast\"}") >= 2);
+    assertEquals(true, metric(body, "tictactoe_commit_seconds_count") >= 1);
+    assertEquals(true, metric(body, "tictactoe_broadcast_fanout_seconds_count") >= 3);
+    assertEquals(true, metric(body, "tictactoe_broadcast_failed_sends_total") >= 0);
+    assertEquals(true, metric(body, "tictactoe_websocket_sessions") >= 0);
+
+    System.out.println("Test: Metrics endpoint.");
+  }
+
+  /**
+  * This is a test case for conditional gameboard requests.
+  */
+  @Test
+  @Order(17)
+  public void etagTest() {
+
+    Unirest.post("http://localhost:8080/game/etag/start").body("type=X").asString();
+    HttpResponse<String> response = Unirest.get("http://localhost:8080/game/etag/join").asString();
+    String etag = response.getHeaders().getFirst("ETag");
+    response = Unirest.get("http://localhost:8080/game/etag/gameboard").asString();
+    assertEquals(200, response.getStatus());
+    assertEquals(etag, response.getHeaders().getFirst("ETag"));
+    String body = response.getBody();
+
+    // Unchanged board
+    response = Unirest.get("http://localhost:8080/game/etag/gameboard")
+        .header("If-None-Match", etag).asString();
+    assertEquals(304, response.getStatus());
+    assertEquals("", response.getBody());
+
+    // A move makes a new version
+    Unirest.post("http://localhost:8080/game/etag/move/1").body("x=0&y=0").asString();
+    response = Unirest.get("http://localhost:8080/game/etag/gameboard")
+        .header("If-None-Match", "\"other\", " + etag).asString();
+    assertEquals(200, response.getStatus());
+    assertEquals(false, etag.equals(response.getHeaders().getFirst("ETag")));
+    assertEquals(false, body.equals(response.getBody()));
+    assertEquals("X", new JSONObject(response.getBody()).getJSONArray("boardState")
+        .getJSONArray(0).get(0));
+
+    // A restarted game never reuses a version
+    String moved = response.getHeaders().getFirst("ETag");
+    Unirest.post("http://localhost:8080/game/etag/start").body("type=X").asString();
+    response = Unirest.get("http://localhost:8080/game/etag/gameboard")
+        .header("If-None-Match", etag).asString();
+    assertEquals(200, response.getStatus());
+    assertEquals(false, moved.equals(response.getHeaders().getFirst("ETag")));
+
+    System.out.println("Test: Conditional gameboard requests.");
+  }
+
+  /**
+  * This is a test case for moves sent over the game's web socket.
+  */
+  @Test
+  @Order(18)
+  public void webSocketMoveTest() throws Exception {
+
+    Unirest.post("http://localhost:8080/game/wsmove/start").body("type=X").asString();
+    Unirest.get("http://localhost:8080/game/wsmove/join").asString();
+    BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    WebSocket socket = HttpClient.newHttpClient().newWebSocketBuilder()
+        .buildAsync(URI.create("ws://localhost:8080/game/wsmove/gameboard"),
+            new WebSocket.Listener() {
+              @Override
+              public CompletionStage<?> onText(WebSocket ws, CharSequence data, boolean last) {
+                received.add(data.toString());
+                ws.request(1);
+                return null;
+              }
+            }).get(5, TimeUnit.SECONDS);
+
+    // Board update first, then the reply
+    socket.sendText("move 1 0 0", true).get(5, TimeUnit.SECONDS);
+    JSONObject jsonObject = new JSONObject(received.poll(5, TimeUnit.SECONDS));
+    assertEquals(2, jsonObject.get("turn"));
+    jsonObject = new JSONObject(received.poll(5, TimeUnit.SECONDS));
+    assertEquals(true, jsonObject.get("moveValidity"));
+    assertEquals(100, jsonObject.get("code"));
+
+    socket.sendText("move 1 1 1", true).get(5, TimeUnit.SECONDS);
+    received.poll(5, TimeUnit.SECONDS);
+    jsonObject = new JSONObject(received.poll(5, TimeUnit.SECONDS));
+    assertEquals(false, jsonObject.get("moveValidity"));
+    assertEquals("Not Your Turn!", jsonObject.get("message"));
+
+    socket.sendText("move 2 one 1", true).get(5, TimeUnit.SECONDS);
+    jsonObject = new JSONObject(received.poll(5, TimeUnit.SECONDS));
+    assertEquals(false, jsonObject.get("moveValidity"));
+    assertEquals("Invalid command!", jsonObject.get("message"));
+
+    socket.sendText("move 2 1 1", true).get(5, TimeUnit.SECONDS);
+    received.poll(5, TimeUnit.SECONDS);
+    jsonObject = new JSONObject(received.poll(5, TimeUnit.SECONDS));
+    assertEquals(true, jsonObject.get("moveValidity"));
+    socket.sendClose(WebSocket.NORMAL_CLOSURE, "done").get(5, TimeUnit.SECONDS);
+
+    HttpResponse<String> response = Unirest.get("http://localhost:8080/game/wsmove/gameboard").asString();
+    GameBoard gameBoard = new Gson().fromJson(response.getBody(), GameBoard.class);
+    assertEquals('X', gameBoard.getBoardState()[0][0]);
+    assertEquals('O', gameBoard.getBoardState()[1][1]);
+    assertEquals(1, gameBoard.getTurn());
+
+    System.out.println("Test: Moves over the web socket.");
+  }
+
+  /**
+  * Read a sample from metrics text.
+  */
+  private static long metric(String body, String sample) {
+    for (String line : body.split("\n")) {
+      if (line.startsWith(sample + " ")) {
+        return Long.parseLong(line.substring(sample.length() + 1));
+      }
+    }
+    return -1;
+  }
+
+  /**
+  * This is a test case for evicting finished games.
+  */
+  @Test
+  @Order(19)
+  public void sweepTest() {
+
+    Unirest.post("http://localhost:8080/game/sweep/start").body("type=X").asString();
+    Unirest.get("http://localhost:8080/game/sweep/join").asString();
+    int[][] moves = {{0, 0}, {1, 0}, {0, 1}, {1, 1}, {0, 2}};
+    for (int i = 0; i < moves.length; i++) {
+      Unirest.post("http://localhost:8080/game/sweep/move/" + (i % 2 + 1))
+          .body("x=" + moves[i][0] + "&y=" + moves[i][1]).asString();
+    }
+    Unirest.post("http://localhost:8080/game/sweepidle/start").body("type=X").asString();
+    HttpResponse<String> response = Unirest.get("http://localhost:8080/game/sweep/gameboard").asString();
+    assertEquals(1, new JSONObject(response.getBody()).get("winner"));
+
+    // Finished games outlive their time to live, unfinished ones do not
+    assertEquals(true, PlayGame.sweep(System.currentTimeMillis() + 600001) >= 1);
+    response = Unirest.get("http://localhost:8080/game/sweep/gameboard").asString();
+    assertEquals(404, response.getStatus());
+    response = Unirest.get("http://localhost:8080/game/sweepidle/gameboard").asString();
+    assertEquals(200, response.getStatus());
+    response = Unirest.get("http://localhost:8080/gameboard").asString();
+    assertEquals(200, response.getStatus());
+
+    System.out.println("Test: Finished games are evicted.");
+  }
+
   /**
   * This will run every time after a test has finished.
   */
@@ -0,0 +1,166 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.google.gson.Gson;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import models.GameBoard;
+import models.JsonCodec;
+import models.Message;
+import models.Move;
+import models.MoveCheck;
+import models.Player;
+import org.junit.jupiter.api.Test;
+
+
+public class JsonCodecTest {
+
+  Gson gson = new Gson();
+
+  JsonCodec codec = JsonCodec.get();
+
+  private Player player(int id, char type) {
+    Player p = new Player();
+    p.setId(id);
+    p.setType(type);
+    return p;
+  }
+
+  private void assertSameBytes(String expected, JsonCodec json)
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    json.writeTo(out);
+    byte[] bytes = expected.getBytes(StandardCharsets.UTF_8);
+    assertArrayEquals(bytes, out.toByteArray());
+    // Unpaired surrogates only turn into '?' once encoded
+    assertEquals(new String(bytes, StandardCharsets.UTF_8), json.toString());
+  }
+
+  @Test
+  public void testNewGameBoard() throws IOException {
+    GameBoard board = new GameBoard();
+    assertSameBytes(gson.toJson(board), codec.encode(board));
+    board.setP1(player(1, 'X'));
+    board.setBoardState(new char[3][3]);
+    assertSameBytes(gson.toJson(board), codec.encode(board));
+  }
+
+  @Test
+  public void testGameInProgress() throws IOException {
+    GameBoard board = new GameBoard();
+    board.setP1(player(1, 'X'));
+    board.setP2(player(2, 'O'));
+    board.setGameStarted(true);
+    board.setTurn(2);
+    char[][] state = new char[15][15];
+    state[7][7] = 'X';
+    state[0][14] = 'O';
+    board.setWinLength(5);
+    board.setBoardState(state);
+    board.setWinner(1);
+    board.setIsDraw(true);
+    assertSameBytes(gson.toJson(board), codec.encode(board));
+  }
+
+  @Test
+  public void testEscapedMarks() throws IOException {
+    char[] marks = {'"', '\\', '<', '>', '&', '=', '\'', '\n', '\t', '\u0001',
+        '\u007f', '\u00e9', '\u2028', '\u2029', '\u20ac', '\ud83d', '/'};
+    GameBoard board = new GameBoard();
+    board.setP1(player(1, '<'));
+    board.setP2(player(-2147483648, '\u00e9'));
+    char[][] state = new char[marks.length][marks.length];
+    for (char[] row : state) {
+      System.arraycopy(marks, 0, row, 0, marks.length);
+    }
+    board.setBoardState(state);
+    board.setTurn(-42);
+    assertSameBytes(gson.toJson(board), codec.encode(board));
+  }
+
+  @Test
+  public void testMessage() throws IOException {
+    Message message = new Message();
+    assertSameBytes(gson.toJson(message), codec.encode(message));
+    message.setMoveValidity(true);
+    message.setCode(1210);
+    message.setMessage("Invalid Move. Try Again!");
+    assertSameBytes(gson.toJson(message), codec.encode(message));
+    message.setMessage("a'b<c>&d=e \"q\" \\ \u00e9\u20ac\ud83d\ude00 \ude00\n");
+    assertSameBytes(gson.toJson(message), codec.encode(message));
+  }
+
+  @Test
+  public void testCheckReply() throws IOException {
+    GameBoard board = new GameBoard();
+    board.setP1(player(1, 'X'));
+    board.setP2(player(2, 'O'));
+    board.setTurn(1);
+    char[][] state = new char[15][15];
+    state[14][3] = 'X';
+    board.setBoardState(state);
+    int[][] moves = {{1, 14, 3}, {1, 15, 0}, {1, 0, 15}, {2, 10, 0},
+        {1, 18, 18}, {1, 19, 0}, {1, -1, 0}, {1, 2, 2}};
+    for (int round = 0; round < 3; round++) {
+      board.setGameStarted(round > 0);
+      board.setWinner(round > 1 ? 1 : 0);
+      for (int[] m : moves) {
+        Move move = new Move();
+        move.setPlayer(board.getPlayerFromId(m[0]));
+        move.setMoveX(m[1]);
+        move.setMoveY(m[2]);
+        Message message = new Message();
+        MoveCheck check = board.check(m[0], m[1], m[2]);
+        if (check.hasCode() && m[1] < 0) {
+          continue;
+        }
+        board.isValid(move, message);
+        assertSameBytes(gson.toJson(message),
+            codec.encode(check, m[0], m[1], m[2]));
+        assertEquals(gson.toJson(message), codec.toString());
+      }
+    }
+  }
+
+  @Test
+  public void testPlayer() throws IOException {
+    assertSameBytes(gson.toJson(player(2, 'O')), codec.encode(player(2, 'O')));
+    assertSameBytes(gson.toJson(new Player()), codec.encode(new Player()));
+  }
+
+  @Test
+  public void testDelta() {
+    GameBoard board = new GameBoard();
+    board.setP1(player(1, 'X'));
+    board.setP2(player(2, 'O'));
+    board.setTurn(2);
+    board.setWinner(2);
+    Move move = new Move();
+    move.setPlayer(board.getP2());
+    move.setMoveX(10);
+    move.setMoveY(0);
+    assertEquals("{\"seq\":12345678901,\"x\":10,\"y\":0,\"mark\":\"O\","
+        + "\"winner\":2}",
+        codec.encodeDelta(12345678901L, board, move, 2).toString());
+    board.setWinner(0);
+    board.setIsDraw(true);
+    board.setTurn(1);
+    assertEquals("{\"seq\":3,\"x\":10,\"y\":0,\"mark\":\"O\",\"turn\":1,"
+        + "\"isDraw\":true}",
+        codec.encodeDelta(3, board, move, 2).toString());
+  }
+
+  @Test
+  public void testBufferGrows() throws IOException {
+    GameBoard board = new GameBoard();
+    char[][] state = new char[100][100];
+    for (char[] row : state) {
+      Arrays.fill(row, '\u0000');
+    }
+    board.setBoardState(state);
+    assertSameBytes(gson.toJson(board), codec.encode(board));
+  }
+
+}
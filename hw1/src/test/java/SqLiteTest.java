@@ -1,5 +1,6 @@
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import models.BoardEngine;
 import models.GameBoard;
 import models.SqLite;
 import org.junit.jupiter.api.Test;
@@ -182,4 +183,68 @@ public class SqLiteTest {
     db.close();
   }
 
-}
\ No newline at end of file
+  @Test
+  public void testInProgressShape() {
+    db.start();
+    db.commit();
+    db.clear("shape");
+    db.insertGame("shape", 15, 5);
+    db.insertPlayer("shape", 1, 'X');
+    db.insertPlayer("shape", 2, 'O');
+    db.insertBoard("shape", 1, 14, 14, 0, 0);
+    db.commit();
+    db.close();
+    db.start();
+    GameBoard board = new GameBoard();
+    db.inProgress("shape", board);
+    assertEquals(15, board.getDim());
+    assertEquals(5, board.getWinLength());
+    assertEquals('X', board.getBoardState()[14][14]);
+    assertEquals(2, board.getTurn());
+    db.clear("shape");
+    db.commit();
+    db.close();
+  }
+
+  @Test
+  public void testFinishedGamesNotRecovered() {
+    db.start();
+    db.commit();
+    db.clear("open");
+    db.clear("won");
+    db.insertPlayer("open", 1, 'X');
+    db.insertPlayer("won", 1, 'X');
+    db.insertBoard("won", 1, 0, 0, 1, 0);
+    db.commit();
+    assertEquals(true, db.getGames().contains("open"));
+    assertEquals(false, db.getGames().contains("won"));
+    db.clear("open");
+    db.clear("won");
+    db.commit();
+    db.close();
+  }
+
+  @Test
+  public void testEngineRoundTrip() {
+    db.start();
+    db.commit();
+    db.clear("bits");
+    db.insertGame("bits", 8, 4, BoardEngine.BITBOARD);
+    db.insertPlayer("bits", 1, 'X');
+    db.insertBoard("bits", 1, 7, 7, 0, 0);
+    db.commit();
+    db.close();
+    db.start();
+    GameBoard board = new GameBoard();
+    db.inProgress("bits", board);
+    assertEquals(BoardEngine.BITBOARD, board.getEngine().name());
+    assertEquals(false, board.getEngine().isEmpty(7, 7));
+    board = new GameBoard();
+    db.inProgress("none", board);
+    assertEquals(BoardEngine.ARRAY, board.getEngine().name());
+    db.clear("bits");
+    db.commit();
+    db.close();
+  }
+
+}
@@ -0,0 +1,47 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import models.ThreadCache;
+import org.junit.jupiter.api.Test;
+
+
+public class ThreadCacheTest {
+
+  private Object onNewThread(ThreadCache<Object> cache, boolean release)
+      throws InterruptedException {
+    AtomicReference<Object> got = new AtomicReference<>();
+    Thread thread = new Thread(() -> {
+      got.set(cache.get());
+      if (release) {
+        ThreadCache.releaseAll();
+      }
+    });
+    thread.start();
+    thread.join();
+    return got.get();
+  }
+
+  @Test
+  public void testReleasedObjectIsReused() throws InterruptedException {
+    AtomicInteger created = new AtomicInteger();
+    ThreadCache<Object> cache = new ThreadCache<>(() -> {
+      created.incrementAndGet();
+      return new Object();
+    });
+    Object first = onNewThread(cache, true);
+    assertSame(first, onNewThread(cache, true));
+    assertSame(first, onNewThread(cache, false));
+    assertNotSame(first, onNewThread(cache, false));
+    assertEquals(2, created.get());
+  }
+
+  @Test
+  public void testThreadKeepsItsObject() {
+    ThreadCache<Object> cache = new ThreadCache<>(Object::new);
+    assertSame(cache.get(), cache.get());
+  }
+
+}
@@ -0,0 +1,323 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import benchmarks.Sessions;
+import com.google.gson.Gson;
+import controllers.Metrics;
+import controllers.UiWebSocket;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import models.BinaryCodec;
+import models.GameBoard;
+import models.Move;
+import models.Player;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.jupiter.api.Test;
+
+
+public class UiWebSocketTest {
+
+  private static final String FAILED_SENDS =
+      "tictactoe_broadcast_failed_sends_total ";
+
+  /**
+   * Create a session that records every text message sent to it.
+   * @param received list collecting messages
+   * @return Session
+   */
+  private Session session(final List<String> received) {
+    return session(received, new ArrayList<>());
+  }
+
+  /**
+   * Create a session that records every text and binary message sent
+   * to it.
+   * @param received list collecting text messages
+   * @param frames list collecting binary messages
+   * @return Session
+   */
+  private Session session(final List<String> received,
+      final List<ByteBuffer> frames) {
+    return session((proxy, method, args) -> {
+      if (method.getName().equals("sendString")) {
+        received.add((String) args[0]);
+      } else if (method.getName().equals("sendBytes")) {
+        // Consume it like Jetty does
+        ByteBuffer frame = (ByteBuffer) args[0];
+        frames.add(frame.slice());
+        frame.position(frame.limit());
+      }
+      if (args != null && args.length == 2
+          && args[1] instanceof WriteCallback) {
+        ((WriteCallback) args[1]).writeSuccess();
+      }
+      return null;
+    });
+  }
+
+  /**
+   * Create a session whose remote endpoint runs every call through a
+   * handler.
+   * @param remote handler of RemoteEndpoint calls
+   * @return Session
+   */
+  private Session session(final InvocationHandler remote) {
+    return Sessions.create((RemoteEndpoint) Proxy.newProxyInstance(
+        getClass().getClassLoader(), new Class<?>[] {RemoteEndpoint.class},
+        remote));
+  }
+
+  @Test
+  public void testBroadcastOnlyReachesGame() {
+    List<String> receivedA = new ArrayList<>();
+    List<String> receivedB = new ArrayList<>();
+    Session sessionA = session(receivedA);
+    Session sessionB = session(receivedB);
+    UiWebSocket.subscribe("ws-a", sessionA);
+    UiWebSocket.subscribe("ws-b", sessionB);
+
+    assertEquals(0, UiWebSocket.broadcast("ws-a", "board"));
+    assertEquals(1, receivedA.size());
+    assertEquals(0, receivedB.size());
+
+    UiWebSocket.unsubscribe(sessionA);
+    UiWebSocket.unsubscribe(sessionB);
+    assertEquals(0, UiWebSocket.getSessions("ws-a").size());
+  }
+
+  @Test
+  public void testResubscribeMovesSession() {
+    Session session = session(new ArrayList<>());
+    UiWebSocket.subscribe("ws-c", session);
+    UiWebSocket.subscribe("ws-d", session);
+    assertEquals(0, UiWebSocket.getSessions("ws-c").size());
+    assertEquals(1, UiWebSocket.getSessions("ws-d").size());
+    UiWebSocket.unsubscribe(session);
+    assertEquals(0, UiWebSocket.getSessions("ws-d").size());
+  }
+
+  @Test
+  public void testFailedSendIsCounted() {
+    Session session = session((proxy, method, args) -> {
+      throw new IOException("closed");
+    });
+    long before = metric(FAILED_SENDS);
+    UiWebSocket.subscribe("ws-e", session);
+    assertEquals(1, UiWebSocket.broadcast("ws-e", "board"));
+    UiWebSocket.unsubscribe(session);
+    assertEquals(before + 1, metric(FAILED_SENDS));
+  }
+
+  @Test
+  public void testDeltaProtocol() {
+    Gson gson = new Gson();
+    GameBoard board = new GameBoard();
+    Player p1 = new Player();
+    p1.setId(1);
+    p1.setType('X');
+    board.setP1(p1);
+    board.setGameStarted(true);
+    board.setTurn(1);
+    board.setBoardState(new char[3][3]);
+    UiWebSocket.setBoards(id -> "ws-f".equals(id) ? board : null);
+    List<String> full = new ArrayList<>();
+    List<String> delta = new ArrayList<>();
+    Session fullSession = session(full);
+    Session deltaSession = session(delta);
+    UiWebSocket.subscribe("ws-f", fullSession);
+    UiWebSocket.subscribe("ws-f", deltaSession, UiWebSocket.Protocol.DELTA);
+    assertEquals(0, full.size());
+    assertEquals("{\"seq\":0,\"board\":" + gson.toJson(board) + "}",
+        delta.get(0));
+
+    Move move = new Move();
+    move.setPlayer(p1);
+    move.setMoveX(1);
+    move.setMoveY(2);
+    board.makeMove(move);
+    board.switchTurn();
+    assertEquals(0, UiWebSocket.broadcastMove("ws-f", board, move, 1));
+    assertEquals(gson.toJson(board), full.get(0));
+    assertEquals("{\"seq\":1,\"x\":1,\"y\":2,\"mark\":\"X\",\"turn\":2}",
+        delta.get(1));
+
+    // Rejected moves change nothing a delta session has to know
+    UiWebSocket.broadcastMove("ws-f", board, null, 2);
+    assertEquals(2, full.size());
+    assertEquals(2, delta.size());
+
+    UiWebSocket.broadcast("ws-f", gson.toJson(board));
+    assertEquals("{\"seq\":2,\"board\":" + gson.toJson(board) + "}",
+        delta.get(2));
+    UiWebSocket.requestSnapshot(deltaSession);
+    assertEquals(delta.get(2), delta.get(3));
+    assertEquals(3, full.size());
+
+    UiWebSocket.unsubscribe(fullSession);
+    UiWebSocket.unsubscribe(deltaSession);
+    UiWebSocket.setBoards(id -> null);
+  }
+
+  @Test
+  public void testSequenceOutlivesSessions() {
+    GameBoard board = new GameBoard();
+    Player p1 = new Player();
+    p1.setId(1);
+    p1.setType('X');
+    board.setP1(p1);
+    board.setBoardState(new char[3][3]);
+    UiWebSocket.setBoards(id -> "ws-i".equals(id) ? board : null);
+    List<String> first = new ArrayList<>();
+    Session firstSession = session(first);
+    UiWebSocket.subscribe("ws-i", firstSession, UiWebSocket.Protocol.DELTA);
+    Move move = new Move();
+    move.setPlayer(p1);
+    board.makeMove(move);
+    UiWebSocket.broadcastMove("ws-i", board, move, 1);
+    UiWebSocket.unsubscribe(firstSession);
+
+    // The last session left, but the game lives on with its numbering
+    List<String> second = new ArrayList<>();
+    Session secondSession = session(second);
+    UiWebSocket.subscribe("ws-i", secondSession, UiWebSocket.Protocol.DELTA);
+    assertEquals(true, second.get(0).startsWith("{\"seq\":1,"));
+    UiWebSocket.unsubscribe(secondSession);
+
+    UiWebSocket.setBoards(id -> null);
+    assertEquals(0, UiWebSocket.closeGame("ws-i"));
+  }
+
+  @Test
+  public void testMoveCommandErrors() {
+    List<String> received = new ArrayList<>();
+    Session session = session(received);
+    UiWebSocket.subscribe("ws-j", session);
+    UiWebSocket.setMoveHandler((game, playerId, x, y) -> {
+      throw new IllegalStateException("store down");
+    });
+    try {
+      UiWebSocket.move(session, "move 1 x 0");
+      UiWebSocket.move(session, "move 1 0");
+      assertEquals(2, received.size());
+      assertEquals(true, received.get(0).contains("Invalid command!"));
+      // Server faults are not passed off as bad commands
+      assertThrows(IllegalStateException.class,
+          () -> UiWebSocket.move(session, "move 1 0 0"));
+      assertEquals(2, received.size());
+    } finally {
+      UiWebSocket.setMoveHandler(null);
+      UiWebSocket.unsubscribe(session);
+    }
+  }
+
+  @Test
+  public void testBinaryFramesAreShared() {
+    GameBoard board = new GameBoard();
+    Player p1 = new Player();
+    p1.setId(1);
+    p1.setType('X');
+    board.setP1(p1);
+    board.setBoardState(new char[3][3]);
+    UiWebSocket.setBoards(id -> "ws-g".equals(id) ? board : null);
+    List<ByteBuffer> framesA = new ArrayList<>();
+    List<ByteBuffer> framesB = new ArrayList<>();
+    Session sessionA = session(new ArrayList<>(), framesA);
+    Session sessionB = session(new ArrayList<>(), framesB);
+    UiWebSocket.subscribe("ws-g", sessionA, UiWebSocket.Protocol.BINARY);
+    UiWebSocket.subscribe("ws-g", sessionB, UiWebSocket.Protocol.BINARY);
+    assertEquals(1, framesA.size());
+
+    Move move = new Move();
+    move.setPlayer(p1);
+    move.setMoveX(0);
+    move.setMoveY(1);
+    board.makeMove(move);
+    assertEquals(0, UiWebSocket.broadcastMove("ws-g", board, move, 1));
+    assertEquals(2, framesA.size());
+    assertEquals(2, framesB.size());
+    assertEquals(BinaryCodec.frameLength(3), framesB.get(1).remaining());
+    assertEquals(framesA.get(1), framesB.get(1));
+    assertEquals('X', BinaryCodec.decode(framesB.get(1))
+        .getBoardState()[0][1]);
+
+    UiWebSocket.unsubscribe(sessionA);
+    UiWebSocket.unsubscribe(sessionB);
+    UiWebSocket.setBoards(id -> null);
+  }
+
+  @Test
+  public void testSlowSessionIsEvicted() throws InterruptedException {
+    // Sends to this session never complete
+    List<WriteCallback> inFlight = new ArrayList<>();
+    Session slow = session((proxy, method, args) -> {
+      inFlight.add((WriteCallback) args[1]);
+      return null;
+    });
+    List<String> received = new ArrayList<>();
+    Session fast = session(received);
+    long before = metric("tictactoe_websocket_evictions_total ");
+    UiWebSocket.setSendLimits(2, 10000);
+    try {
+      UiWebSocket.subscribe("ws-h", slow);
+      UiWebSocket.subscribe("ws-h", fast);
+      assertEquals(0, UiWebSocket.broadcast("ws-h", "1"));
+      // Completing a send makes room for another
+      inFlight.get(0).writeSuccess();
+      assertEquals(0, UiWebSocket.broadcast("ws-h", "2"));
+      assertEquals(0, UiWebSocket.broadcast("ws-h", "3"));
+      assertEquals(1, UiWebSocket.broadcast("ws-h", "4"));
+      assertEquals(3, inFlight.size());
+      assertEquals(4, received.size());
+      assertEquals(1, UiWebSocket.getSessions("ws-h").size());
+      assertEquals(before + 1, metric("tictactoe_websocket_evictions_total "));
+
+      // A send in flight for too long evicts too
+      UiWebSocket.setSendLimits(2, 1);
+      UiWebSocket.subscribe("ws-h", slow);
+      assertEquals(0, UiWebSocket.broadcast("ws-h", "5"));
+      Thread.sleep(5);
+      assertEquals(1, UiWebSocket.broadcast("ws-h", "6"));
+      assertEquals(1, UiWebSocket.getSessions("ws-h").size());
+      assertEquals(6, received.size());
+    } finally {
+      UiWebSocket.setSendLimits(64, 10000);
+      UiWebSocket.unsubscribe(slow);
+      UiWebSocket.unsubscribe(fast);
+    }
+  }
+
+  @Test
+  public void testStalledSessionOfQuietGameIsEvicted()
+      throws InterruptedException {
+    Session slow = session((proxy, method, args) -> null);
+    UiWebSocket.setSendLimits(64, 50);
+    try {
+      UiWebSocket.subscribe("ws-k", slow);
+      assertEquals(0, UiWebSocket.broadcast("ws-k", "1"));
+      assertEquals(0, UiWebSocket.evictStalled(System.nanoTime()));
+      Thread.sleep(60);
+      // No further send reaches the session; the sweep evicts it
+      assertEquals(1, UiWebSocket.evictStalled(System.nanoTime()));
+      assertEquals(0, UiWebSocket.getSessions("ws-k").size());
+    } finally {
+      UiWebSocket.setSendLimits(64, 10000);
+      UiWebSocket.unsubscribe(slow);
+    }
+  }
+
+  private long metric(String sample) {
+    for (String line : Metrics.render().split("\n")) {
+      if (line.startsWith(sample)) {
+        return Long.parseLong(line.substring(sample.length()));
+      }
+    }
+    return -1;
+  }
+
+}
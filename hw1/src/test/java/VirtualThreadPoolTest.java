@@ -0,0 +1,61 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import controllers.VirtualThreadPool;
+import io.javalin.Javalin;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+
+public class VirtualThreadPoolTest {
+
+  private static final int REQUESTS = 32;
+
+  private long loopThreads() {
+    return Thread.getAllStackTraces().keySet().stream()
+        .filter(t -> t.getName().startsWith("jetty-loop")).count();
+  }
+
+  @Test
+  public void testServesOnVirtualThreads() {
+    assumeTrue(Runtime.version().feature() >= 21,
+        "Virtual threads need Java 21");
+    Javalin app = Javalin.create(config ->
+        config.server(() -> VirtualThreadPool.newServer(0))).start();
+    try {
+      app.get("/thread", ctx -> ctx.result(Thread.currentThread().toString()));
+      HttpClient client = HttpClient.newHttpClient();
+      HttpRequest request = HttpRequest.newBuilder(
+          URI.create("http://localhost:" + app.port() + "/thread")).build();
+      List<CompletableFuture<HttpResponse<String>>> replies =
+          new ArrayList<>();
+      for (int i = 0; i < REQUESTS; i++) {
+        replies.add(client.sendAsync(request,
+            HttpResponse.BodyHandlers.ofString()));
+      }
+      for (CompletableFuture<HttpResponse<String>> reply : replies) {
+        HttpResponse<String> response = reply.join();
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().startsWith("VirtualThread"),
+            response.body());
+      }
+      // The acceptor and selectors hold platform threads, at most one
+      // spare per selector, however busy
+      int selectors = Math.max(1,
+          Runtime.getRuntime().availableProcessors() / 2);
+      long loops = loopThreads();
+      assertTrue(loops >= 1 + selectors && loops <= 1 + 2 * selectors,
+          loops + " loop threads");
+    } finally {
+      app.stop();
+    }
+  }
+
+}
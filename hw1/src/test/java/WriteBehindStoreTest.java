@@ -0,0 +1,100 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import models.SqLite;
+import models.WriteBehindStore;
+import models.WriteBehindStore.Durability;
+import org.junit.jupiter.api.Test;
+
+
+public class WriteBehindStoreTest {
+
+  SqLite db = new SqLite();
+
+  @Test
+  public void testSyncWriteIsCommitted() {
+    db.start();
+    db.clear("wb-sync");
+    db.commit();
+    WriteBehindStore store = new WriteBehindStore(db, 16, 0, Durability.SYNC);
+    store.submit(d -> d.insertBoard("wb-sync", 1, 0, 0, 0, 0));
+    // Committed before submit returned: survives a close without commit
+    db.close();
+    db.start();
+    assertEquals(1, db.getBoard("wb-sync", 1, 0, 0));
+    db.clear("wb-sync");
+    db.commit();
+    db.close();
+    store.close();
+  }
+
+  @Test
+  public void testAsyncWritesCommittedOnClose() {
+    db.start();
+    db.clear("wb-async");
+    db.commit();
+    WriteBehindStore store = new WriteBehindStore(db, 4, 5, Durability.ASYNC);
+    for (int i = 0; i < 10; i++) {
+      int row = i;
+      store.submit(d -> d.insertBoard("wb-async", 1, row, 0, 0, 0));
+    }
+    store.close();
+    db.close();
+    db.start();
+    for (int i = 0; i < 10; i++) {
+      assertEquals(1, db.getBoard("wb-async", 1, i, 0));
+    }
+    db.clear("wb-async");
+    db.commit();
+    db.close();
+  }
+
+  @Test
+  public void testSqlErrorFailsAwait() {
+    db.start();
+    WriteBehindStore store = new WriteBehindStore(db, 16, 0, Durability.SYNC);
+    // GAMEBOARD.GAME is NOT NULL, so SQLite itself rejects the insert
+    WriteBehindStore.Write write =
+        store.enqueue(d -> d.insertBoard(null, 1, 0, 0, 0, 0));
+    assertThrows(IllegalStateException.class, () -> store.await(write));
+    store.close();
+    db.close();
+  }
+
+  @Test
+  public void testFailedBatchIsRolledBack() {
+    AtomicBoolean fail = new AtomicBoolean(true);
+    SqLite flaky = new SqLite() {
+      @Override
+      public synchronized void insertBoard(String game, int player, int x,
+          int y, int winner, int draw) {
+        if (x == 1 && fail.getAndSet(false)) {
+          throw new IllegalStateException("disk full");
+        }
+        super.insertBoard(game, player, x, y, winner, draw);
+      }
+    };
+    flaky.start();
+    flaky.clear("wb-fail");
+    flaky.commit();
+    WriteBehindStore store = new WriteBehindStore(flaky, 16, 200,
+        Durability.SYNC);
+    // Both writes land in one batch, which the second one fails
+    WriteBehindStore.Write first =
+        store.enqueue(d -> d.insertBoard("wb-fail", 1, 0, 0, 0, 0));
+    WriteBehindStore.Write second =
+        store.enqueue(d -> d.insertBoard("wb-fail", 1, 1, 0, 0, 0));
+    assertThrows(IllegalStateException.class, () -> store.await(first));
+    assertThrows(IllegalStateException.class, () -> store.await(second));
+    assertEquals(0, flaky.getBoard("wb-fail", 1, 0, 0));
+    // The writer keeps going
+    store.submit(d -> d.insertBoard("wb-fail", 1, 1, 0, 0, 0));
+    assertEquals(1, flaky.getBoard("wb-fail", 1, 1, 0));
+    store.close();
+    flaky.clear("wb-fail");
+    flaky.commit();
+    flaky.close();
+  }
+
+}
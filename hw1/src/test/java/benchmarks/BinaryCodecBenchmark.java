@@ -0,0 +1,69 @@
+package benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import models.BinaryCodec;
+import models.GameBoard;
+import models.JsonCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding a board update as a binary frame against the JSON text frame,
+ * and decoding the binary frame as a bot client would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryCodecBenchmark {
+
+  @Param({"3", "15", "19"})
+  private int dim;
+
+  private GameBoard board;
+
+  private ByteBuffer frame;
+
+  private final JsonCodec codec = new JsonCodec();
+
+  @Setup
+  public void setUp() {
+    char[][] state = new char[dim][dim];
+    for (int i = 0; i < dim; i++) {
+      for (int j = 0; j < dim; j += 2) {
+        state[i][(j + i) % dim] = (i + j) % 3 == 0 ? 'X' : 'O';
+      }
+    }
+    board = Boards.started(state, Math.min(dim, 5));
+    board.setTurn(2);
+    frame = BinaryCodec.encode(board);
+  }
+
+  @Benchmark
+  public ByteBuffer encodeBinary() {
+    return BinaryCodec.encode(board);
+  }
+
+  @Benchmark
+  public String encodeJson() {
+    return codec.encode(board).toString();
+  }
+
+  @Benchmark
+  public GameBoard decodeBinary() {
+    return BinaryCodec.decode(frame);
+  }
+
+}
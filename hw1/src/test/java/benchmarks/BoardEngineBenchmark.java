@@ -0,0 +1,81 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import models.BoardEngine;
+import models.GameBoard;
+import models.Message;
+import models.Move;
+import models.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full 3x3 game played through isValid / makeMove / isOver on each
+ * board engine.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardEngineBenchmark {
+
+  /**
+   * Moves of a game that ends in a draw on the last cell.
+   */
+  private static final int[][] MOVES = {
+      {0, 0}, {0, 2}, {0, 1}, {1, 0}, {1, 2}, {1, 1}, {2, 0}, {2, 2}, {2, 1}
+  };
+
+  @Param({BoardEngine.ARRAY, BoardEngine.BITBOARD})
+  private String engine;
+
+  private GameBoard board;
+
+  private Move[] moves;
+
+  private final char[][] empty = new char[3][3];
+
+  private final Message message = new Message();
+
+  @Setup
+  public void setUp() {
+    board = Boards.started(empty, GameBoard.DEFAULT_WIN_LENGTH);
+    board.setEngine(BoardEngine.forName(engine));
+    moves = new Move[MOVES.length];
+    for (int i = 0; i < MOVES.length; i++) {
+      moves[i] = new Move();
+      moves[i].setPlayer(board.getPlayerFromId(i % 2 + 1));
+      moves[i].setMoveX(MOVES[i][0]);
+      moves[i].setMoveY(MOVES[i][1]);
+    }
+  }
+
+  @Benchmark
+  public boolean playGame() {
+    board.setBoardState(empty);
+    board.setTurn(1);
+    board.setIsDraw(false);
+    board.setWinner(0);
+    boolean over = false;
+    for (Move move : moves) {
+      if (board.isValid(move, message)) {
+        board.makeMove(move);
+        over = board.isOver(move);
+        board.switchTurn();
+      }
+    }
+    return over;
+  }
+
+}
@@ -0,0 +1,71 @@
+package benchmarks;
+
+import models.GameBoard;
+import models.Move;
+import models.Player;
+
+/**
+ * Game board fixtures for benchmarks.
+ */
+public final class Boards {
+
+  private Boards() {
+  }
+
+  /**
+   * Create a started game between X (player 1) and O (player 2), X to
+   * move.
+   * @param state marks on the board, copied
+   * @param winLength marks in a row needed to win
+   * @return GameBoard
+   */
+  public static GameBoard started(final char[][] state,
+      final int winLength) {
+    Player p1 = new Player();
+    p1.setId(1);
+    p1.setType('X');
+    Player p2 = new Player();
+    p2.setId(2);
+    p2.setType('O');
+    GameBoard board = new GameBoard();
+    board.setP1(p1);
+    board.setP2(p2);
+    board.setWinLength(winLength);
+    board.setBoardState(state);
+    board.setGameStarted(true);
+    board.setTurn(1);
+    return board;
+  }
+
+  /**
+   * Play a cell for the player to move, clearing the board first if the
+   * game is over, so moves can go on forever.
+   * @param board GameBoard changed in place
+   * @param x row
+   * @param y column
+   * @return whether the move was valid
+   */
+  public static boolean move(final GameBoard board, final int x,
+      final int y) {
+    if (board.isFinished()) {
+      int dim = board.getBoardState().length;
+      board.setBoardState(new char[dim][dim]);
+      board.setWinner(0);
+      board.setIsDraw(false);
+      board.setTurn(1);
+    }
+    if (!board.check(board.getTurn(), x, y).isValid()) {
+      return false;
+    }
+    Move move = new Move();
+    move.setPlayer(board.getPlayerFromId(board.getTurn()));
+    move.setMoveX(x);
+    move.setMoveY(y);
+    board.makeMove(move);
+    if (!board.isOver(move)) {
+      board.switchTurn();
+    }
+    return true;
+  }
+
+}
@@ -0,0 +1,72 @@
+package benchmarks;
+
+import controllers.UiWebSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jetty.websocket.api.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Broadcast cost to the two players of one game while the number of
+ * connections subscribed to other games grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastBenchmark {
+
+  private static final String GAME = "bench";
+
+  private static final String BOARD_JSON = "{\"p1\":{\"type\":\"X\",\"id\":1},"
+      + "\"gameStarted\":true,\"turn\":1,\"winner\":0,\"isDraw\":false}";
+
+  @Param({"0", "1000", "10000", "100000"})
+  private int unrelatedConnections;
+
+  private final List<Session> sessions = new ArrayList<>();
+
+  @Setup
+  public void setUp() {
+    for (int i = 0; i < 2; i++) {
+      subscribe(GAME);
+    }
+    for (int i = 0; i < unrelatedConnections; i++) {
+      subscribe("other-" + (i / 2));
+    }
+  }
+
+  private void subscribe(final String game) {
+    Session session = Sessions.create();
+    UiWebSocket.subscribe(game, session);
+    sessions.add(session);
+  }
+
+  @TearDown
+  public void tearDown() {
+    for (Session session : sessions) {
+      UiWebSocket.unsubscribe(session);
+    }
+    sessions.clear();
+  }
+
+  @Benchmark
+  public int broadcastToOneGame() {
+    return UiWebSocket.broadcast(GAME, BOARD_JSON);
+  }
+
+}
@@ -0,0 +1,74 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import models.GameBoard;
+import models.Move;
+import models.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * isOver on the last move of a drawn game, against the cell scan it
+ * replaced, for board sizes from 3x3 to 19x19.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DrawDetectionBenchmark {
+
+  @Param({"3", "5", "9", "15", "19"})
+  private int dim;
+
+  private GameBoard board;
+
+  private char[][] state;
+
+  private Move last;
+
+  @Setup
+  public void setUp() {
+    state = new char[dim][dim];
+    // Runs of at most two equal marks in every direction
+    for (int i = 0; i < dim; i++) {
+      for (int j = 0; j < dim; j++) {
+        state[i][j] = (i + j / 2) % 2 == 0 ? 'X' : 'O';
+      }
+    }
+    board = Boards.started(state, 3);
+    last = new Move();
+    last.setPlayer(board.getP1());
+    last.setMoveX(0);
+    last.setMoveY(0);
+  }
+
+  @Benchmark
+  public boolean isOver() {
+    return board.isOver(last);
+  }
+
+  @Benchmark
+  public boolean fullScan() {
+    int moves = 0;
+    for (int i = 0; i < state.length; i++) {
+      for (int j = 0; j < state.length; j++) {
+        if (state[i][j] == 'X' || state[i][j] == 'O') {
+          moves++;
+        }
+      }
+    }
+    return moves == state.length * state.length;
+  }
+
+}
@@ -0,0 +1,144 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import models.BoardView;
+import models.GameBoard;
+import models.JsonCodec;
+import models.Message;
+import models.Move;
+import models.MoveCheck;
+import models.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single GameBoard operations on a board in the middle of a game, for
+ * classic 3x3 and 15x15 five in a row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBoardBenchmark {
+
+  @Param({"3", "15"})
+  private int dim;
+
+  private GameBoard board;
+
+  private char[][] state;
+
+  private Move move;
+
+  private Move free;
+
+  private final Message message = new Message();
+
+  private final JsonCodec codec = new JsonCodec();
+
+  @Setup
+  public void setUp() {
+    state = new char[dim][dim];
+    state[0][0] = 'X';
+    state[0][2] = 'X';
+    state[0][1] = 'O';
+    state[1][0] = 'O';
+    board = Boards.started(state, Math.min(dim, 5));
+    Player p1 = board.getP1();
+    // Last move played, it does not complete a line
+    move = new Move();
+    move.setPlayer(p1);
+    move.setMoveX(dim / 2);
+    move.setMoveY(dim / 2);
+    board.makeMove(move);
+    free = new Move();
+    free.setPlayer(p1);
+    free.setMoveX(dim - 1);
+    free.setMoveY(dim - 1);
+  }
+
+  @Benchmark
+  public boolean isValid() {
+    return board.isValid(free, message);
+  }
+
+  @Benchmark
+  public MoveCheck check() {
+    return board.check(1, dim - 1, dim - 1);
+  }
+
+  @Benchmark
+  public MoveCheck checkTaken() {
+    return board.check(1, 0, 0);
+  }
+
+  @Benchmark
+  public int moveCode() {
+    return GameBoard.moveCode(1, dim - 1, dim - 1);
+  }
+
+  @Benchmark
+  public int rejectionReply() {
+    return codec.encode(board.check(1, 0, 0), 1, 0, 0).length();
+  }
+
+  @Benchmark
+  public void makeMove() {
+    board.makeMove(move);
+  }
+
+  @Benchmark
+  public boolean isOver() {
+    return board.isOver(move);
+  }
+
+  @Benchmark
+  public GameBoard setBoardState() {
+    board.setBoardState(state);
+    return board;
+  }
+
+  @Benchmark
+  public char[][] getBoardState() {
+    return board.getBoardState();
+  }
+
+  @Benchmark
+  public int countMarksCopy() {
+    int marks = 0;
+    for (char[] row : board.getBoardState()) {
+      for (char c : row) {
+        if (c != '\u0000') {
+          marks++;
+        }
+      }
+    }
+    return marks;
+  }
+
+  @Benchmark
+  public int countMarksView() {
+    BoardView view = board.view();
+    int marks = 0;
+    for (int i = 0; i < view.dim(); i++) {
+      for (int j = 0; j < view.dim(); j++) {
+        if (!view.isEmpty(i, j)) {
+          marks++;
+        }
+      }
+    }
+    return marks;
+  }
+
+}
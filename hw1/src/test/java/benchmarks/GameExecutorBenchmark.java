@@ -0,0 +1,84 @@
+package benchmarks;
+
+import controllers.GameExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import models.GameBoard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Moves per second from a request thread per core, each move a random
+ * cell on a random game: one global lock around every move against
+ * per-game mailboxes on a thread per core. Run with -t to vary the
+ * request threads and on machines with more cores to see the scaling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Threads(Threads.MAX)
+@Fork(1)
+public class GameExecutorBenchmark {
+
+  private static final int DIM = 15;
+
+  @Param({"lock", "executor"})
+  private String mode;
+
+  @Param({"1", "1024"})
+  private int games;
+
+  private GameBoard[] boards;
+
+  private String[] ids;
+
+  private GameExecutor executor;
+
+  private final Object lock = new Object();
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    boards = new GameBoard[games];
+    ids = new String[games];
+    for (int i = 0; i < games; i++) {
+      boards[i] = Boards.started(new char[DIM][DIM], 5);
+      ids[i] = "game" + i;
+    }
+    executor = new GameExecutor();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    executor.shutdown();
+  }
+
+  @Benchmark
+  public boolean move() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int game = random.nextInt(games);
+    int x = random.nextInt(DIM);
+    int y = random.nextInt(DIM);
+    GameBoard board = boards[game];
+    if (mode.equals("lock")) {
+      synchronized (lock) {
+        return Boards.move(board, x, y);
+      }
+    }
+    return executor.call(ids[game], () -> Boards.move(board, x, y));
+  }
+
+}
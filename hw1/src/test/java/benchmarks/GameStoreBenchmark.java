@@ -0,0 +1,161 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import models.EventLogStore;
+import models.GameBoard;
+import models.GameStore;
+import models.SqLite;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SQLite against the memory-mapped event log: committed moves per
+ * second, and time to rebuild every game of a filled store.
+ * log-sync flushes the mapped segment on every commit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class GameStoreBenchmark {
+
+  private static final int GAMES = 1000;
+
+  private static final int DIM = 3;
+
+  private static final int CELLS = DIM * DIM;
+
+  static GameStore open(String store, File dir) {
+    switch (store) {
+      case "sqlite":
+        return new SqLite(new File(dir, "bench.db").getPath());
+      case "log":
+        return new EventLogStore(dir.getPath());
+      case "log-sync":
+        return new EventLogStore(dir.getPath(),
+            EventLogStore.DEFAULT_SEGMENT_RECORDS,
+            EventLogStore.DEFAULT_SNAPSHOT_INTERVAL, true);
+      default:
+        throw new IllegalArgumentException(store);
+    }
+  }
+
+  static void delete(File dir) {
+    File[] files = dir.listFiles();
+    if (files != null) {
+      for (File f : files) {
+        f.delete();
+      }
+    }
+    dir.delete();
+  }
+
+  /**
+   * Games played one move per operation; a game restarts every 9 moves.
+   */
+  @State(Scope.Benchmark)
+  public static class Append {
+
+    @Param({"sqlite", "log", "log-sync"})
+    String store;
+
+    File dir;
+
+    GameStore db;
+
+    int n;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+      dir = Files.createTempDirectory("append").toFile();
+      db = open(store, dir);
+      db.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      db.close();
+      delete(dir);
+    }
+  }
+
+  /**
+   * A store holding finished 3x3 games, reopened for every recovery.
+   */
+  @State(Scope.Benchmark)
+  public static class Recovery {
+
+    @Param({"sqlite", "log"})
+    String store;
+
+    File dir;
+
+    GameStore db;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+      dir = Files.createTempDirectory("recovery").toFile();
+      db = open(store, dir);
+      db.start();
+      for (int g = 0; g < GAMES; g++) {
+        String game = "g" + g;
+        db.insertGame(game, DIM, DIM);
+        db.insertPlayer(game, 1, 'X');
+        db.insertPlayer(game, 2, 'O');
+        for (int c = 0; c < CELLS; c++) {
+          db.insertBoard(game, c % 2 + 1, c / DIM, c % DIM, 0,
+              c == CELLS - 1 ? 1 : 0);
+        }
+      }
+      db.commit();
+      db.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      delete(dir);
+    }
+  }
+
+  @Benchmark
+  public void append(Append s) {
+    int n = s.n++;
+    String game = "g" + (n / CELLS % GAMES);
+    int cell = n % CELLS;
+    if (cell == 0) {
+      s.db.clear(game);
+    }
+    s.db.insertBoard(game, cell % 2 + 1, cell / DIM, cell % DIM, 0, 0);
+    s.db.commit();
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int recover(Recovery s) {
+    s.db.start();
+    int moves = 0;
+    for (String game : s.db.getGames()) {
+      GameBoard board = new GameBoard();
+      s.db.inProgress(game, board);
+      moves += board.getMoveCount();
+    }
+    s.db.close();
+    return moves;
+  }
+
+}
@@ -0,0 +1,101 @@
+package benchmarks;
+
+import com.google.gson.Gson;
+import java.util.concurrent.TimeUnit;
+import models.GameBoard;
+import models.JsonCodec;
+import models.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization of the payloads PlayGame sends after every move: Gson
+ * with a new instance per call, as PlayGame used to do, and with a shared
+ * one, against the streaming JsonCodec into its reused buffer (bytes)
+ * and on to a String (what a text frame needs), and the board's cached
+ * encoding of an unchanged version. Run with -prof gc for the
+ * allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+  @Param({"3", "15"})
+  private int dim;
+
+  private GameBoard board;
+
+  private Message message;
+
+  private final Gson gson = new Gson();
+
+  private final JsonCodec codec = JsonCodec.get();
+
+  @Setup
+  public void setUp() {
+    char[][] state = new char[dim][dim];
+    for (int i = 0; i < dim; i++) {
+      state[i][(i * 2) % dim] = i % 2 == 0 ? 'X' : 'O';
+    }
+    board = Boards.started(state, Math.min(dim, 5));
+    board.setTurn(2);
+    message = new Message();
+    message.setMoveValidity(false);
+    message.setCode(111);
+    message.setMessage("Invalid Move. Try Again!");
+  }
+
+  @Benchmark
+  public String gameBoard() {
+    return new Gson().toJson(board);
+  }
+
+  @Benchmark
+  public String gameBoardSharedGson() {
+    return gson.toJson(board);
+  }
+
+  @Benchmark
+  public String message() {
+    return new Gson().toJson(message);
+  }
+
+  @Benchmark
+  public String messageSharedGson() {
+    return gson.toJson(message);
+  }
+
+  @Benchmark
+  public int gameBoardCodec() {
+    return codec.encode(board).length();
+  }
+
+  @Benchmark
+  public String gameBoardCodecString() {
+    return codec.encode(board).toString();
+  }
+
+  @Benchmark
+  public int messageCodec() {
+    return codec.encode(message).length();
+  }
+
+  @Benchmark
+  public int gameBoardCached() {
+    return board.encoded().length();
+  }
+
+}
@@ -0,0 +1,71 @@
+package benchmarks;
+
+import controllers.PlayGame;
+import controllers.UiWebSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jetty.websocket.api.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rejected moves sent over a game's web socket, through the running
+ * server's move handler, mailbox and reply encoding. Run with -prof gc
+ * to see what a rejection allocates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveBenchmark {
+
+  private static final String GAME = "http://localhost:8080/game/bench/";
+
+  private Session session;
+
+  @Setup
+  public void setUp() throws Exception {
+    PlayGame.main(null);
+    HttpClient client = HttpClient.newHttpClient();
+    client.send(HttpRequest.newBuilder(URI.create(GAME + "start"))
+        .header("Content-Type", "application/x-www-form-urlencoded")
+        .POST(HttpRequest.BodyPublishers.ofString("type=X&dim=15")).build(),
+        HttpResponse.BodyHandlers.discarding());
+    client.send(HttpRequest.newBuilder(URI.create(GAME + "join")).build(),
+        HttpResponse.BodyHandlers.discarding());
+    session = Sessions.create();
+    UiWebSocket.subscribe("bench", session);
+    UiWebSocket.move(session, "move 1 0 0");
+  }
+
+  @TearDown
+  public void tearDown() {
+    UiWebSocket.unsubscribe(session);
+    PlayGame.stop();
+  }
+
+  @Benchmark
+  public void notYourTurn() {
+    UiWebSocket.move(session, "move 1 1 1");
+  }
+
+  @Benchmark
+  public void taken() {
+    UiWebSocket.move(session, "move 2 0 0");
+  }
+
+}
@@ -0,0 +1,63 @@
+package benchmarks;
+
+import java.lang.reflect.Proxy;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+
+/**
+ * Fake WebSocket sessions for benchmarks and tests.
+ */
+public final class Sessions {
+
+  /**
+   * Remote endpoint that drops every message and reports it sent, so
+   * sessions never fall behind.
+   */
+  private static final RemoteEndpoint NULL_REMOTE = (RemoteEndpoint) Proxy
+      .newProxyInstance(RemoteEndpoint.class.getClassLoader(),
+          new Class<?>[] {RemoteEndpoint.class},
+          (proxy, method, args) -> {
+            if (args != null && args.length == 2
+                && args[1] instanceof WriteCallback) {
+              ((WriteCallback) args[1]).writeSuccess();
+            }
+            return null;
+          });
+
+  private Sessions() {
+  }
+
+  /**
+   * Create a session whose remote endpoint discards messages.
+   * @return Session
+   */
+  public static Session create() {
+    return create(NULL_REMOTE);
+  }
+
+  /**
+   * Create an open session sending through a given remote endpoint.
+   * @param remote RemoteEndpoint
+   * @return Session
+   */
+  public static Session create(final RemoteEndpoint remote) {
+    Object identity = new Object();
+    return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(),
+        new Class<?>[] {Session.class}, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getRemote":
+              return remote;
+            case "isOpen":
+              return true;
+            case "hashCode":
+              return identity.hashCode();
+            case "equals":
+              return proxy == args[0];
+            default:
+              return null;
+          }
+        });
+  }
+
+}
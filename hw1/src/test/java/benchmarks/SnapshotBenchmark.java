@@ -0,0 +1,121 @@
+package benchmarks;
+
+import controllers.GameRegistry;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import models.EncodedBoard;
+import models.GameBoard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Contention on game boards: moves from many threads on one game or
+ * spread over many, and board reads racing moves. A lock per board,
+ * changed in place, against copies published with a compare and swap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class SnapshotBenchmark {
+
+  private static final int DIM = 15;
+
+  @Param({"lock", "cas"})
+  private String mode;
+
+  @Param({"1", "1024"})
+  private int games;
+
+  private GameRegistry registry;
+
+  private String[] ids;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    registry = new GameRegistry();
+    ids = new String[games];
+    for (int i = 0; i < games; i++) {
+      ids[i] = "game" + i;
+      registry.put(ids[i], Boards.started(new char[DIM][DIM], 5));
+    }
+  }
+
+  private static boolean canMove(final GameBoard board, final int x,
+      final int y) {
+    return board.isFinished()
+        || board.check(board.getTurn(), x, y).isValid();
+  }
+
+  private GameBoard randomMove() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    String id = ids[random.nextInt(games)];
+    int x = random.nextInt(DIM);
+    int y = random.nextInt(DIM);
+    if (mode.equals("lock")) {
+      GameBoard board = registry.get(id);
+      synchronized (board) {
+        Boards.move(board, x, y);
+      }
+      return board;
+    }
+    while (true) {
+      GameBoard current = registry.get(id);
+      if (!canMove(current, x, y)) {
+        return current;
+      }
+      GameBoard next = current.copy();
+      Boards.move(next, x, y);
+      if (registry.publish(id, current, next)) {
+        return next;
+      }
+    }
+  }
+
+  private EncodedBoard randomRead() {
+    GameBoard board = registry.get(ids[
+        ThreadLocalRandom.current().nextInt(games)]);
+    if (mode.equals("lock")) {
+      synchronized (board) {
+        return board.encoded();
+      }
+    }
+    return board.encoded();
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public GameBoard moves() {
+    return randomMove();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(3)
+  public EncodedBoard read() {
+    return randomRead();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  public GameBoard write() {
+    return randomMove();
+  }
+
+}
@@ -0,0 +1,135 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import models.GameBoard;
+import models.SqLite;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Insert and lookup throughput of SqLite's cached prepared statements
+ * against SQL built by concatenation on a shared Statement, and the
+ * cost of rebuilding one finished game with inProgress.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqLiteBenchmark {
+
+  private static final String GAME = "bench";
+
+  private static final String FINISHED = "finished";
+
+  private static final int COMMIT_EVERY = 1000;
+
+  private File preparedFile;
+
+  private File concatFile;
+
+  private SqLite db;
+
+  private Connection conn;
+
+  private Statement stmt;
+
+  private int row;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, SQLException {
+    preparedFile = File.createTempFile("prepared", ".db");
+    concatFile = File.createTempFile("concat", ".db");
+    db = new SqLite(preparedFile.getPath());
+    db.start();
+    db.insertPlayer(GAME, 1, 'X');
+    db.insertPlayer(FINISHED, 1, 'X');
+    db.insertPlayer(FINISHED, 2, 'O');
+    for (int c = 0; c < 9; c++) {
+      db.insertBoard(FINISHED, c % 2 + 1, c / 3, c % 3, 0, c == 8 ? 1 : 0);
+    }
+    db.commit();
+    // Same schema, driven the way SqLite used to
+    SqLite schema = new SqLite(concatFile.getPath());
+    schema.start();
+    schema.insertPlayer(GAME, 1, 'X');
+    schema.commit();
+    schema.close();
+    conn = DriverManager.getConnection("jdbc:sqlite:" + concatFile.getPath());
+    conn.setAutoCommit(false);
+    stmt = conn.createStatement();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    db.close();
+    stmt.close();
+    conn.close();
+    preparedFile.delete();
+    concatFile.delete();
+  }
+
+  @Benchmark
+  public void insertPrepared() {
+    db.insertBoard(GAME, 1, row++, 0, 0, 0);
+    if (row % COMMIT_EVERY == 0) {
+      db.commit();
+    }
+  }
+
+  @Benchmark
+  public void insertConcatenated() throws SQLException {
+    stmt.executeUpdate("INSERT INTO GAMEBOARD (GAME,PLAYER,ROW,COLUMN,WINNER,DRAW) "
+        + "VALUES ('" + GAME + "'," + 1 + "," + row++ + "," + 0
+        + "," + 0 + "," + 0 + ");");
+    if (row % COMMIT_EVERY == 0) {
+      conn.commit();
+    }
+  }
+
+  @Benchmark
+  public char lookupPrepared() {
+    return db.getType(GAME, 1);
+  }
+
+  @Benchmark
+  public char lookupConcatenated() throws SQLException {
+    char type = 0;
+    ResultSet rs = stmt.executeQuery("SELECT * FROM PLAYER "
+        + "WHERE GAME= '" + GAME + "' AND " + "ID= " + 1);
+    try {
+      while (rs.next()) {
+        type = rs.getString("TYPE").charAt(0);
+      }
+    } finally {
+      rs.close();
+    }
+    return type;
+  }
+
+  @Benchmark
+  public GameBoard inProgress() {
+    GameBoard board = new GameBoard();
+    db.inProgress(FINISHED, board);
+    return board;
+  }
+
+}
@@ -0,0 +1,80 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import models.SqLite;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Two writer threads committing moves while six threads look up
+ * players and cells, for a single reader connection and a pool.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class SqLitePoolBenchmark {
+
+  private static final String GAME = "bench";
+
+  @Param({"1", "4", "8"})
+  private int readers;
+
+  private File file;
+
+  private SqLite db;
+
+  private final AtomicInteger row = new AtomicInteger();
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    file = File.createTempFile("pool", ".db");
+    db = new SqLite(file.getPath(), readers);
+    db.start();
+    db.insertPlayer(GAME, 1, 'X');
+    db.insertBoard(GAME, 1, 0, 0, 0, 0);
+    db.commit();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    db.close();
+    file.delete();
+    new File(file.getPath() + "-wal").delete();
+    new File(file.getPath() + "-shm").delete();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(2)
+  public void write() {
+    db.insertBoard(GAME, 2, row.incrementAndGet(), 0, 0, 0);
+    db.commit();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(6)
+  public int read() {
+    return db.getType(GAME, 1) + db.getBoard(GAME, 1, 0, 0);
+  }
+
+}
@@ -0,0 +1,85 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import models.SqLite;
+import models.WriteBehindStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Persisted moves per second from concurrent request threads: a commit
+ * per move on the calling thread, as after-handlers used to do, against
+ * the write-behind store in both durability modes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Threads(8)
+@Fork(1)
+public class WriteBehindBenchmark {
+
+  private static final String GAME = "bench";
+
+  @Param({"direct", "sync", "async"})
+  private String mode;
+
+  @Param({"0", "2"})
+  private long flushWindowMs;
+
+  private File file;
+
+  private SqLite db;
+
+  private WriteBehindStore store;
+
+  private final AtomicInteger row = new AtomicInteger();
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    file = File.createTempFile("write-behind", ".db");
+    db = new SqLite(file.getPath());
+    db.start();
+    if (!mode.equals("direct")) {
+      store = new WriteBehindStore(db, 4096, flushWindowMs,
+          WriteBehindStore.Durability.valueOf(mode.toUpperCase()));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (store != null) {
+      store.close();
+    }
+    db.close();
+    file.delete();
+  }
+
+  @Benchmark
+  public void move() {
+    int r = row.incrementAndGet();
+    if (store == null) {
+      db.insertBoard(GAME, 1, r, 0, 0, 0);
+      db.commit();
+    } else {
+      store.submit(d -> d.insertBoard(GAME, 1, r, 0, 0, 0));
+    }
+  }
+
+}
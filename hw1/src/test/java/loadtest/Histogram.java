@@ -0,0 +1,71 @@
+package loadtest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram in microseconds.
+ * Values below 64 get a bucket each; above that every power of two is
+ * split into 64 buckets, so percentiles are within about 1.5%.
+ */
+final class Histogram {
+
+  private static final int SUB_BITS = 6;
+
+  private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+  private final AtomicLongArray counts =
+      new AtomicLongArray((64 - SUB_BITS + 1) * SUB_BUCKETS);
+
+  static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) Math.max(0, value);
+    }
+    int exp = 63 - Long.numberOfLeadingZeros(value);
+    int sub = (int) (value >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+    return (exp - SUB_BITS + 1) * SUB_BUCKETS + sub;
+  }
+
+  static long value(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int exp = index / SUB_BUCKETS + SUB_BITS - 1;
+    long sub = index % SUB_BUCKETS;
+    return (SUB_BUCKETS + sub) << (exp - SUB_BITS);
+  }
+
+  void record(long micros) {
+    counts.incrementAndGet(index(micros));
+  }
+
+  long count() {
+    long total = 0;
+    for (int i = 0; i < counts.length(); i++) {
+      total += counts.get(i);
+    }
+    return total;
+  }
+
+  /**
+   * Smallest recorded value that at least a fraction of values are at
+   * or below.
+   * @param fraction between 0 and 1
+   * @return micros, 0 if nothing was recorded
+   */
+  long percentile(double fraction) {
+    long total = count();
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(fraction * total));
+    long seen = 0;
+    for (int i = 0; i < counts.length(); i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return value(i);
+      }
+    }
+    return value(counts.length() - 1);
+  }
+
+}
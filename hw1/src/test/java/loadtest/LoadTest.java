@@ -0,0 +1,304 @@
+package loadtest;
+
+import controllers.PlayGame;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * End-to-end load generator.
+ * Every match is two players on their own game id: both open the game's
+ * web socket, player 1 starts the game, player 2 joins and they take
+ * turns on random free cells until the game ends, then start over.
+ * Reports throughput and latency of the HTTP replies and of the board
+ * broadcasts, measured from sending the request that caused them.
+ *
+ * <p>Run with {@code mvn -Ploadtest test-compile exec:java} and tune with
+ * system properties:
+ * <ul>
+ * <li>loadtest.matches concurrent matches, 2 players each (500)</li>
+ * <li>loadtest.thinkMs pause before every request (50)</li>
+ * <li>loadtest.durationSec how long to play (30)</li>
+ * <li>loadtest.rampSec time over which matches start (5)</li>
+ * <li>loadtest.dim board dimension (3)</li>
+ * <li>loadtest.url server to test; starts PlayGame in process if
+ * unset</li>
+ * </ul>
+ *
+ * <p>To compare thread modes on a slow disk, run the in-process server on
+ * Java 21 with -Dtictactoe.threads=platform or virtual and
+ * -Dloadtest.commitDelayMs=200, which puts a SlowDiskStore under it.
+ */
+public final class LoadTest {
+
+  private static final String LOCAL = "http://localhost:8080";
+
+  private static final String FORM = "application/x-www-form-urlencoded";
+
+  private final HttpClient client;
+
+  private final String http;
+
+  private final String ws;
+
+  private final int dim;
+
+  private final long thinkMs;
+
+  private final Histogram httpLatency = new Histogram();
+
+  private final Histogram broadcastLatency = new Histogram();
+
+  private final LongAdder games = new LongAdder();
+
+  private final LongAdder errors = new LongAdder();
+
+  private final LongAdder lostBroadcasts = new LongAdder();
+
+  private LoadTest(String url, int dim, long thinkMs) {
+    this.client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+    this.http = url;
+    this.ws = url.replaceFirst("^http", "ws");
+    this.dim = dim;
+    this.thinkMs = thinkMs;
+  }
+
+  public static void main(String[] args) throws Exception {
+    int matches = Integer.getInteger("loadtest.matches", 500);
+    long thinkMs = Long.getLong("loadtest.thinkMs", 50);
+    long durationSec = Long.getLong("loadtest.durationSec", 30);
+    long rampSec = Long.getLong("loadtest.rampSec", 5);
+    int dim = Integer.getInteger("loadtest.dim", 3);
+    String url = System.getProperty("loadtest.url");
+    boolean embedded = url == null;
+    if (embedded) {
+      if (System.getProperty("loadtest.commitDelayMs") != null) {
+        PlayGame.setStore(new SlowDiskStore());
+      }
+      PlayGame.main(null);
+      url = LOCAL;
+    }
+    try {
+      new LoadTest(url, dim, thinkMs).run(matches, durationSec, rampSec);
+    } finally {
+      if (embedded) {
+        PlayGame.stop();
+      }
+    }
+  }
+
+  private void run(int matches, long durationSec, long rampSec) {
+    System.out.printf(Locale.ROOT, "%d matches, think %d ms, %dx%d board, "
+        + "%d s%n", matches, thinkMs, dim, dim, durationSec);
+    long start = System.nanoTime();
+    long deadline = start + TimeUnit.SECONDS.toNanos(durationSec);
+    long rampNanos = TimeUnit.SECONDS.toNanos(rampSec);
+    List<CompletableFuture<Void>> running = new ArrayList<>();
+    for (int i = 0; i < matches; i++) {
+      Executor delay = CompletableFuture.delayedExecutor(
+          rampNanos * i / matches, TimeUnit.NANOSECONDS);
+      Match match = new Match("load-" + i, new Random(i), deadline);
+      running.add(CompletableFuture.supplyAsync(() -> match, delay)
+          .thenCompose(Match::play)
+          .exceptionally(e -> {
+            errors.increment();
+            return null;
+          }));
+    }
+    CompletableFuture.allOf(running.toArray(new CompletableFuture<?>[0]))
+        .join();
+    double seconds = (System.nanoTime() - start) / 1e9;
+    report(seconds);
+  }
+
+  private void report(double seconds) {
+    System.out.printf(Locale.ROOT, "games      %d completed, %.1f/s%n",
+        games.sum(), games.sum() / seconds);
+    line("http", httpLatency, seconds);
+    line("broadcast", broadcastLatency, seconds);
+    System.out.printf(Locale.ROOT, "errors     %d, lost broadcasts %d%n",
+        errors.sum(), lostBroadcasts.sum());
+  }
+
+  private static void line(String name, Histogram h, double seconds) {
+    System.out.printf(Locale.ROOT, "%-10s %d msgs, %.1f/s, p50 %.2f ms, "
+        + "p99 %.2f ms, p999 %.2f ms, max %.2f ms%n", name, h.count(),
+        h.count() / seconds, h.percentile(0.5) / 1e3,
+        h.percentile(0.99) / 1e3, h.percentile(0.999) / 1e3,
+        h.percentile(1.0) / 1e3);
+  }
+
+  private static long micros(long sentNanos) {
+    return (System.nanoTime() - sentNanos) / 1000;
+  }
+
+  /**
+   * Two players on one game id.
+   */
+  private final class Match {
+
+    private final String id;
+
+    private final Random random;
+
+    private final long deadline;
+
+    private final int[] cells = new int[dim * dim];
+
+    // Send times of requests whose broadcast a socket still waits for
+    private final List<Queue<Long>> pending = new ArrayList<>();
+
+    private final List<WebSocket> sockets = new ArrayList<>();
+
+    Match(String id, Random random, long deadline) {
+      this.id = id;
+      this.random = random;
+      this.deadline = deadline;
+      for (int i = 0; i < cells.length; i++) {
+        cells[i] = i;
+      }
+    }
+
+    CompletableFuture<Void> play() {
+      return connect().thenCompose(v -> connect())
+          .thenCompose(v -> game())
+          .whenComplete((v, e) -> close());
+    }
+
+    private CompletableFuture<Void> connect() {
+      Queue<Long> queue = new ConcurrentLinkedQueue<>();
+      pending.add(queue);
+      return client.newWebSocketBuilder()
+          .buildAsync(URI.create(ws + "/game/" + id + "/gameboard"),
+              new Listener(queue))
+          .thenAccept(sockets::add);
+    }
+
+    private void close() {
+      for (WebSocket socket : sockets) {
+        socket.sendClose(WebSocket.NORMAL_CLOSURE, "done");
+      }
+      for (Queue<Long> queue : pending) {
+        lostBroadcasts.add(queue.size());
+      }
+    }
+
+    private CompletableFuture<Void> game() {
+      if (System.nanoTime() - deadline >= 0) {
+        return CompletableFuture.completedFuture(null);
+      }
+      for (int i = cells.length - 1; i > 0; i--) {
+        int j = random.nextInt(i + 1);
+        int cell = cells[i];
+        cells[i] = cells[j];
+        cells[j] = cell;
+      }
+      return think(() -> post("/game/" + id + "/start", "type=X", false))
+          .thenCompose(r -> think(() -> get("/game/" + id + "/join")))
+          .thenCompose(r -> move(0));
+    }
+
+    private CompletableFuture<Void> move(int turn) {
+      if (turn == cells.length) {
+        games.increment();
+        return game();
+      }
+      int player = turn % 2 + 1;
+      String form = "x=" + cells[turn] / dim + "&y=" + cells[turn] % dim;
+      return think(() -> post("/game/" + id + "/move/" + player, form,
+          true)).thenCompose(body -> {
+            if (body.contains("\"moveValidity\":false")) {
+              // Move after a win: the game is over
+              games.increment();
+              return game();
+            }
+            return move(turn + 1);
+          });
+    }
+
+    private CompletableFuture<String> think(
+        Supplier<CompletableFuture<String>> request) {
+      Executor delay = CompletableFuture.delayedExecutor(thinkMs,
+          TimeUnit.MILLISECONDS);
+      return CompletableFuture.supplyAsync(request, delay)
+          .thenCompose(f -> f);
+    }
+
+    private CompletableFuture<String> get(String path) {
+      return send(HttpRequest.newBuilder(URI.create(http + path)).GET()
+          .build(), true);
+    }
+
+    private CompletableFuture<String> post(String path, String form,
+        boolean broadcasts) {
+      return send(HttpRequest.newBuilder(URI.create(http + path))
+          .header("Content-Type", FORM)
+          .POST(HttpRequest.BodyPublishers.ofString(form))
+          .build(), broadcasts);
+    }
+
+    private CompletableFuture<String> send(HttpRequest request,
+        boolean broadcasts) {
+      long sent = System.nanoTime();
+      if (broadcasts) {
+        for (Queue<Long> queue : pending) {
+          queue.add(sent);
+        }
+      }
+      return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+          .thenApply(response -> {
+            httpLatency.record(micros(sent));
+            if (response.statusCode() != 200) {
+              throw new IllegalStateException(request.uri() + " returned "
+                  + response.statusCode());
+            }
+            return response.body();
+          });
+    }
+  }
+
+  /**
+   * Socket of one player; every complete message is the broadcast of the
+   * oldest request still waiting for one.
+   */
+  private final class Listener implements WebSocket.Listener {
+
+    private final Queue<Long> pending;
+
+    Listener(Queue<Long> pending) {
+      this.pending = pending;
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket socket, CharSequence data,
+        boolean last) {
+      if (last) {
+        Long sent = pending.poll();
+        if (sent != null) {
+          broadcastLatency.record(micros(sent));
+        }
+      }
+      socket.request(1);
+      return null;
+    }
+  }
+
+}
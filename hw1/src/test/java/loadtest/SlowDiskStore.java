@@ -0,0 +1,24 @@
+package loadtest;
+
+import models.SqLite;
+
+/**
+ * SQLite store whose every commit takes loadtest.commitDelayMs longer,
+ * standing in for a slow disk. LoadTest hands it to the in-process
+ * server when loadtest.commitDelayMs is set.
+ */
+public class SlowDiskStore extends SqLite {
+
+  private final long delayMs = Long.getLong("loadtest.commitDelayMs", 20);
+
+  @Override
+  public void commit() {
+    try {
+      Thread.sleep(delayMs);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    super.commit();
+  }
+
+}